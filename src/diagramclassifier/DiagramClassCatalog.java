@@ -0,0 +1,223 @@
+package diagramclassifier;
+
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.*;
+import fi.tkk.ics.jbliss.Graph;
+
+/**
+ * This class represents the list of classes of class diagrams found so far.
+ * Each class is represented by the graph of the complex template diagram
+ * together with the number of its members and the name of its first member.
+ * The classes are looked up by the certificates of the graphs calculated by 
+ * DiagramClassCalculator. The classes may be recorded in a journal as 
+ * described in DiagramClassJournal.
+ * @author Alexey Tazin
+ */
+public class DiagramClassCatalog {
+
+  // The graphs of the complex template diagrams representing the classes
+  private ArrayList<Graph<Integer>> graphClassList = new ArrayList<Graph<Integer>>();
+
+  // The number of member diagrams of each class
+  private ArrayList<Integer> graphClassMemberFreqList = new ArrayList<Integer>();
+
+  // The name of the first member diagram of each class
+  private ArrayList<String> graphClassMemberNameList = new ArrayList<String>();
+
+  // The certificate of each class; null for the class of the diagrams not 
+  // covered by the basic templates
+  private ArrayList<String> graphClassCertificateList = new ArrayList<String>();
+
+  // The index of the class with the given certificate
+  private HashMap<String,Integer> graphClassCertificateIndexMap = new HashMap<String,Integer>();
+
+  // The diagrams that could not be classified
+  private ArrayList<String> failedDiagramNameList = new ArrayList<String>();
+
+  // The failure of each diagram that could not be classified: TIMEOUT or ERROR
+  private ArrayList<String> failureList = new ArrayList<String>();
+
+  // The ordinals of the diagrams in the input, kept for the partial 
+  // catalogs described in PartialDiagramClassCatalog
+  private HashMap<String,Long> diagramOrdinalMap = new HashMap<String,Long>();
+
+  // The journal recording the added member diagrams; null if none
+  private DiagramClassJournal diagramClassJournal = null;
+
+  // The index of the class of the diagrams with the given content hash 
+  // calculated by XmiContentHash, looked up by the pipeline stages
+  private ConcurrentHashMap<String,Integer> contentHashIndexMap = new ConcurrentHashMap<String,Integer>();
+
+  public ArrayList<Graph<Integer>> getGraphClassList() {
+    return graphClassList;
+  }
+
+  public ArrayList<Integer> getGraphClassMemberFreqList() {
+    return graphClassMemberFreqList;
+  }
+
+  public ArrayList<String> getGraphClassMemberNameList() {
+    return graphClassMemberNameList;
+  }
+
+  public ArrayList<String> getGraphClassCertificateList() {
+    return graphClassCertificateList;
+  }
+
+  public ArrayList<String> getFailedDiagramNameList() {
+    return failedDiagramNameList;
+  }
+
+  public ArrayList<String> getFailureList() {
+    return failureList;
+  }
+
+  public HashMap<String,Long> getDiagramOrdinalMap() {
+    return diagramOrdinalMap;
+  }
+
+  public DiagramClassJournal getDiagramClassJournal() {
+    return diagramClassJournal;
+  }
+
+  public void setDiagramClassJournal(DiagramClassJournal diagramClassJournal) {
+    this.diagramClassJournal = diagramClassJournal;
+  }
+
+  public int size() {
+    return graphClassList.size();
+  }
+
+  /**
+   * Adds the given class diagram to its class. A new class is created if
+   * the diagram does not belong to any of the known classes. The diagram 
+   * is recorded in the journal if there is one.
+   * @param graphClass - the graph of the complex template diagram
+   *        representing the class of the diagram; null if the diagram is
+   *        not covered by the basic templates
+   *        graphClassCertificate - the certificate of the graph; null if 
+   *        the diagram is not covered by the basic templates
+   *        diagramName - the class diagram name
+   * @return the index of the class of the given class diagram
+   */
+  public int addMember(Graph<Integer> graphClass, String graphClassCertificate, String diagramName) throws IOException {
+    int graphClassesNum = size();
+    int graphClassIndex = addMembers(graphClass, graphClassCertificate, diagramName, 1);
+    if (diagramClassJournal != null) {
+      if (graphClassIndex == graphClassesNum)
+        diagramClassJournal.recordClass(graphClassIndex, graphClassCertificate);
+      diagramClassJournal.recordMember(graphClassIndex, diagramName);
+    }
+    return graphClassIndex;
+  }
+
+  /**
+   * Adds the given number of members to the class of the given class 
+   * diagram, which becomes the first member if the class is new. The 
+   * members are not recorded in the journal. This is used for merging 
+   * catalogs.
+   * @param graphClass - the graph of the complex template diagram
+   *        representing the class; null if it is not known
+   *        graphClassCertificate - the certificate of the class; null for 
+   *        the class of the diagrams not covered by the basic templates
+   *        diagramName - the class diagram name
+   *        membersNum - the number of members
+   * @return the index of the class
+   */
+  public int addMembers(Graph<Integer> graphClass, String graphClassCertificate, String diagramName, int membersNum) {
+    Integer graphClassIndex = graphClassCertificateIndexMap.get(graphClassCertificate);
+    if (graphClassIndex != null)
+      graphClassMemberFreqList.set(graphClassIndex, graphClassMemberFreqList.get(graphClassIndex).intValue() + membersNum);
+    else {
+      graphClassList.add(graphClass);
+      graphClassCertificateList.add(graphClassCertificate);
+      graphClassMemberFreqList.add(membersNum);
+      graphClassMemberNameList.add(diagramName);
+      graphClassIndex = graphClassList.size() - 1;
+      graphClassCertificateIndexMap.put(graphClassCertificate, graphClassIndex);
+    }
+    return graphClassIndex;
+  }
+
+  /**
+   * Records the class of the diagrams with the given content hash.
+   * @param contentHash - the content hash of a classified diagram
+   *        graphClassIndex - the index of the class of the diagram
+   */
+  public void putContentHash(String contentHash, int graphClassIndex) {
+    contentHashIndexMap.putIfAbsent(contentHash, graphClassIndex);
+  }
+
+  /**
+   * Returns true if a diagram with the given content hash has been added.
+   * @param contentHash - the content hash
+   */
+  public boolean containsContentHash(String contentHash) {
+    return contentHashIndexMap.containsKey(contentHash);
+  }
+
+  /**
+   * Adds the given class diagram to the class of the diagrams with the 
+   * given content hash without classifying it.
+   * @param contentHash - the content hash of the diagram
+   *        diagramName - the class diagram name
+   * @return the index of the class of the given class diagram; -1 if no 
+   *         diagram with the content hash has been added
+   */
+  public int addMemberByContentHash(String contentHash, String diagramName) throws IOException {
+    Integer graphClassIndex = contentHashIndexMap.get(contentHash);
+    if (graphClassIndex == null)
+      return -1;
+    return addMember(graphClassList.get(graphClassIndex), graphClassCertificateList.get(graphClassIndex), diagramName);
+  }
+
+  /**
+   * Adds the given class diagram to the diagrams that could not be 
+   * classified. The diagram is recorded in the journal if there is one.
+   * @param diagramName - the class diagram name
+   *        failure - TIMEOUT if the time budget was spent; ERROR otherwise
+   */
+  public void addFailure(String diagramName, String failure) throws IOException {
+    failedDiagramNameList.add(diagramName);
+    failureList.add(failure);
+    if (diagramClassJournal != null)
+      diagramClassJournal.recordFailure(failure, diagramName);
+  }
+
+  /**
+   * Returns the failure of the given error as recorded by addFailure.
+   * @param error - the error that stopped classifying a diagram
+   * @return TIMEOUT if the time budget was spent; ERROR otherwise
+   */
+  public static String getFailure(Throwable error) {
+    return error instanceof DiagramTimeoutException ? "TIMEOUT" : "ERROR";
+  }
+
+  /**
+   * Removes a member diagram from the given class. The class is kept even 
+   * if it has no members left, so the class numbering does not change.
+   * @param graphClassIndex - the index of the class
+   */
+  public void removeMember(int graphClassIndex) {
+    graphClassMemberFreqList.set(graphClassIndex, graphClassMemberFreqList.get(graphClassIndex).intValue() - 1);
+  }
+
+  /**
+   * Prints the class table.
+   * @param out - the output stream
+   */
+  public void print(PrintStream out) {
+    out.println("Class number\tNumber of members\tMember diagram");
+    for (int i = 0; i < graphClassMemberFreqList.size(); i++)
+      out.println(i + "\t" + graphClassMemberFreqList.get(i).intValue() + "\t" + graphClassMemberNameList.get(i));
+    out.println("Number of diagram classes: " + graphClassMemberFreqList.size());
+    if (!failedDiagramNameList.isEmpty()) {
+      out.println("Failed diagram\tFailure");
+      for (int i = 0; i < failedDiagramNameList.size(); i++)
+        out.println(failedDiagramNameList.get(i) + "\t" + failureList.get(i));
+      out.println("Number of failed diagrams: " + failedDiagramNameList.size());
+    }
+  }
+
+}
\ No newline at end of file
@@ -0,0 +1,183 @@
+package diagramclassifier;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * This class represents an append-only journal of a classification run.
+ * The journal records each classified diagram with the index of its class
+ * and each new class with its certificate, one record per line:
+ *
+ *   C INDEX CERTIFICATE - a new class; - stands for the class of the
+ *                         diagrams not covered by the basic templates
+ *   D INDEX NAME        - a diagram added to the class
+ *   F FAILURE NAME      - a diagram that could not be classified;
+ *                         FAILURE is TIMEOUT or ERROR
+ *
+ * The fields are separated by tabs. The journal is written to the disk in
+ * batches, so a run that dies loses at most the last batch. A resumed run
+ * rebuilds the classes from the journal, skips the recorded diagrams,
+ * including the failed ones, and appends to the journal. The graphs of the
+ * rebuilt classes are not restored, the classes are looked up by their
+ * certificates.
+ * @author Alexey Tazin
+ */
+public class DiagramClassJournal implements Closeable {
+
+  // The number of records written to the disk at once
+  public static final int SYNC_INTERVAL = 100;
+
+  // The journal file stream
+  private FileOutputStream outputStream;
+
+  // The journal writer
+  private Writer writer;
+
+  // The number of records not written to the disk yet
+  private int unsyncedRecordsNum = 0;
+
+  // The names of the diagrams recorded in the journal when it was opened
+  private HashSet<String> recordedDiagramNameSet = new HashSet<String>();
+
+  /**
+   * Opens the given journal file and attaches it to the given class
+   * catalog. If the run is resumed, the classes recorded in the journal are
+   * added to the catalog first; otherwise the journal is cleared.
+   * @param journalFile - the journal file
+   *        resume - true if the run is resumed
+   *        diagramClassCatalog - the empty class catalog
+   */
+  public DiagramClassJournal(File journalFile, boolean resume, DiagramClassCatalog diagramClassCatalog) throws IOException {
+    if (resume && journalFile.exists())
+      replay(journalFile, diagramClassCatalog);
+    outputStream = new FileOutputStream(journalFile, resume);
+    writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+    diagramClassCatalog.setDiagramClassJournal(this);
+  }
+
+  public Set<String> getRecordedDiagramNameSet() {
+    return recordedDiagramNameSet;
+  }
+
+  /**
+   * Adds the classes recorded in the given journal file to the given class
+   * catalog. A torn record at the end of the file is cut off.
+   * @param journalFile - the journal file
+   *        diagramClassCatalog - the class catalog
+   */
+  private void replay(File journalFile, DiagramClassCatalog diagramClassCatalog) throws IOException {
+    HashMap<Integer,String> graphClassCertificateMap = new HashMap<Integer,String>();
+    long validLength = 0;
+    InputStream inputStream = new BufferedInputStream(new FileInputStream(journalFile));
+    try {
+      ByteArrayOutputStream lineBytes = new ByteArrayOutputStream();
+      int b;
+      while ((b = inputStream.read()) != -1) {
+        if (b != '\n') {
+          lineBytes.write(b);
+          continue;
+        }
+        String line = new String(lineBytes.toByteArray(), StandardCharsets.UTF_8);
+        String[] fields = line.split("\t", 3);
+        if (fields.length != 3)
+          throw new IOException("Corrupted journal record at byte " + validLength + ": " + line);
+        if (fields[0].equals("C"))
+          graphClassCertificateMap.put(Integer.parseInt(fields[1]), fields[2].equals("-") ? null : fields[2]);
+        else if (fields[0].equals("F")) {
+          String diagramName = unescape(fields[2]);
+          diagramClassCatalog.addFailure(diagramName, fields[1]);
+          recordedDiagramNameSet.add(diagramName);
+        } else if (fields[0].equals("D")) {
+          int graphClassIndex = Integer.parseInt(fields[1]);
+          if (!graphClassCertificateMap.containsKey(graphClassIndex))
+            throw new IOException("Unknown class " + graphClassIndex + " in journal record at byte " + validLength);
+          String diagramName = unescape(fields[2]);
+          diagramClassCatalog.addMember(null, graphClassCertificateMap.get(graphClassIndex), diagramName);
+          recordedDiagramNameSet.add(diagramName);
+        } else
+          throw new IOException("Corrupted journal record at byte " + validLength + ": " + line);
+        validLength += lineBytes.size() + 1;
+        lineBytes.reset();
+      }
+    } finally {
+      inputStream.close();
+    }
+    if (validLength < journalFile.length()) {
+      RandomAccessFile file = new RandomAccessFile(journalFile, "rw");
+      try {
+        file.setLength(validLength);
+      } finally {
+        file.close();
+      }
+    }
+  }
+
+  /**
+   * Records a new class.
+   * @param graphClassIndex - the index of the class
+   *        graphClassCertificate - the certificate of the class; null for
+   *        the class of the diagrams not covered by the basic templates
+   */
+  public void recordClass(int graphClassIndex, String graphClassCertificate) throws IOException {
+    writer.write("C\t" + graphClassIndex + "\t" + (graphClassCertificate == null ? "-" : graphClassCertificate) + "\n");
+  }
+
+  /**
+   * Records a diagram added to its class. The records are written to the
+   * disk every SYNC_INTERVAL diagrams.
+   * @param graphClassIndex - the index of the class
+   *        diagramName - the class diagram name
+   */
+  public void recordMember(int graphClassIndex, String diagramName) throws IOException {
+    writer.write("D\t" + graphClassIndex + "\t" + escape(diagramName) + "\n");
+    if (++unsyncedRecordsNum >= SYNC_INTERVAL)
+      sync();
+  }
+
+  /**
+   * Records a diagram that could not be classified.
+   * @param failure - TIMEOUT or ERROR
+   *        diagramName - the class diagram name
+   */
+  public void recordFailure(String failure, String diagramName) throws IOException {
+    writer.write("F\t" + failure + "\t" + escape(diagramName) + "\n");
+    if (++unsyncedRecordsNum >= SYNC_INTERVAL)
+      sync();
+  }
+
+  /**
+   * Writes the records to the disk.
+   */
+  public void sync() throws IOException {
+    writer.flush();
+    outputStream.getFD().sync();
+    unsyncedRecordsNum = 0;
+  }
+
+  public void close() throws IOException {
+    try {
+      sync();
+    } finally {
+      writer.close();
+    }
+  }
+
+  static String escape(String diagramName) {
+    return diagramName.replace("\\", "\\\\").replace("\n", "\\n").replace("\t", "\\t");
+  }
+
+  static String unescape(String diagramName) {
+    StringBuilder result = new StringBuilder();
+    for (int i = 0; i < diagramName.length(); i++) {
+      char c = diagramName.charAt(i);
+      if (c == '\\' && i + 1 < diagramName.length()) {
+        c = diagramName.charAt(++i);
+        result.append(c == 'n' ? '\n' : c == 't' ? '\t' : c);
+      } else
+        result.append(c);
+    }
+    return result.toString();
+  }
+
+}
\ No newline at end of file
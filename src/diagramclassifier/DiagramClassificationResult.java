@@ -0,0 +1,94 @@
+package diagramclassifier;
+
+import fi.tkk.ics.jbliss.Graph;
+
+/**
+ * This class represents the result of classifying a class diagram by 
+ * DiagramClassifierService together with the time spent in each step.
+ * @author Alexey Tazin 
+ */
+public class DiagramClassificationResult {
+
+  // The class diagram name
+  private String diagramName;
+
+  // The graph of the complex template diagram representing the class
+  private Graph<Integer> graphClass;
+
+  // True if the class diagram is covered by copies of the basic templates
+  private boolean covered;
+
+  // The index of the class
+  private int graphClassIndex;
+
+  // The time of parsing the XMI file
+  private long parseNanos;
+
+  // The time of generating the E-graph
+  private long buildNanos;
+
+  // The time of covering the E-graph by the basic templates
+  private long coverNanos;
+
+  // The time of building the complex template
+  private long pushoutNanos;
+
+  // The time of canonical labeling
+  private long labelNanos;
+
+  public DiagramClassificationResult(String diagramName, Graph<Integer> graphClass, boolean covered, 
+                                     int graphClassIndex, long parseNanos, long buildNanos, long coverNanos, 
+                                     long pushoutNanos, long labelNanos) {
+    this.diagramName = diagramName;
+    this.graphClass = graphClass;
+    this.covered = covered;
+    this.graphClassIndex = graphClassIndex;
+    this.parseNanos = parseNanos;
+    this.buildNanos = buildNanos;
+    this.coverNanos = coverNanos;
+    this.pushoutNanos = pushoutNanos;
+    this.labelNanos = labelNanos;
+  }
+
+  public String getDiagramName() {
+    return diagramName;
+  }
+
+  public Graph<Integer> getGraphClass() {
+    return graphClass;
+  }
+
+  public int getGraphClassIndex() {
+    return graphClassIndex;
+  }
+
+  /**
+   * Returns true if the class diagram is covered by copies of the basic 
+   * templates.
+   * @return true if the class diagram is covered; false otherwise
+   */
+  public boolean isCovered() {
+    return covered;
+  }
+
+  public long getParseNanos() {
+    return parseNanos;
+  }
+
+  public long getBuildNanos() {
+    return buildNanos;
+  }
+
+  public long getCoverNanos() {
+    return coverNanos;
+  }
+
+  public long getPushoutNanos() {
+    return pushoutNanos;
+  }
+
+  public long getLabelNanos() {
+    return labelNanos;
+  }
+
+}
\ No newline at end of file
@@ -1,99 +1,1020 @@
-package diagramclassifier;
-
-import java.io.*;
-import java.util.*;
-import java.lang.*;
-import org.argouml.model.*;
-import org.xml.sax.InputSource;
-import fi.tkk.ics.jbliss.Graph;
-import fi.tkk.ics.jbliss.DefaultReporter;
-import fi.tkk.ics.jbliss.Utils;
-
-/**
- * This allows to classfiy the given list of ArgoUML class diagrams 
- * represented in XMI 1.2 format.
- * @author Alexey Tazin 
- */
-public class DiagramClassifier {
-
-  public static void main(String[] args) {
-    int diagramsNum = Integer.parseInt(args[0]);
-    classifyDiagrams(diagramsNum);
-
-  /**
-   * Classifies the given list of class diagrams. The files representing 
-   * class diagram are stored in the current directory. The file names have 
-   * the diagramN.xmi format where N is an integer from 1 to diagramsNum.
-   * @param diagramsNum - the number of class diagrams to classify
-   */
-  public static void classifyDiagrams(int diagramsNum) {
-    try {
-
-        ModelImplementation modelImpl = 
-          InitializeModel.initializeModelImplementation("org.argouml.model.mdr.MDRModelImplementation");
-        Model.setImplementation(modelImpl);
-
-        ArrayList<Graph<Integer>> graphClassList = new ArrayList<Graph<Integer>>();
-        ArrayList<Integer> graphClassMemberFreqList = new ArrayList<Integer>();
-        ArrayList<String> graphClassMemberNameList = new ArrayList<String>();
-
-        for (int i = 1; i <= diagramsNum; i++) {
-          
-          String diagramFileName = "diagram" + i + ".xmi";
-          File xmiFile = new File(diagramFileName);
-          XmiReader xmiReader = Model.getXmiReader();
-          InputSource inputSource = new InputSource(new FileInputStream(xmiFile));
-          Collection elements = xmiReader.parse(inputSource, false);
-          Object model = elements.iterator().next();
-
-          DiagramGraph diagramGraph = new DiagramGraph();
-
-          DiagramGraphGenerator.generateDiagramGraph(modelImpl, model, diagramGraph);
-
-          DiagramClassCalculator diagramClassCalculator = new DiagramClassCalculator();
-          Graph<Integer> graphClass = diagramClassCalculator.calulateDiagramClass(diagraGraph);
-
-          int graphClassIndex = getGraphClassIndex(graphClassList, graphClass);
-          if (graphClassIndex != -1)
-            graphClassMemberFreqList.set(graphClassIndex, graphClassMemberFreqList.get(graphClassIndex).intValue() + 1);
-          else {
-            graphClassList.add(graphClass);
-            graphClassMemberFreqList.add(1);
-            graphClassMemberNameList.add(diagramFileName);
-          }
-
-       }
-
-       System.out.println("Class number\tNumber of members\tMember diagram);
-       for (int i = 0; i < graphClassMemberFreqList.size(); i++) 
-         System.out.println(i + "\t" + graphClassMemberFreqList.get(i).intValue() + "\t" + graphClassMemberList.get(i));
-       System.out.println("Number of diagram classes: " + graphClassMemberFreqList.size());
-
-    } catch (Exception e) {
-      e.printStackTrace();
-    }
-  }
-
-  /**
-   * Returns an index of the graph of the complex template diagram 
-   * representing the class of class diagrams from the list of graphs of the 
-   * complex pattern diagrams representing the classes of class diagrams.
-   * @param graphClassList - the list of graphs of the complex template 
-   *        diagrams representing the classes of class diagrams
-   *        graphClass - the graph of the complex template diagram 
-   *        representing the class of class diagrams
-   * @return the index of the graph of the complex template diagram 
-   *         representing the class of class diagrams; -1 if no such graph 
-   *         found
-   */
-  public static int getGraphClassIndex(ArrayList<Graph<Integer>> graphClassList, 
-                                                   Graph<Integer> graphClass) {
-    for (int i = 0; i < graphClassList.size(); i++) {
-       Graph<Integer> element = graphClassList.get(i);
-      if (element.compareTo(graphClass)) 
-        return i;
-    }
-    return -1;
-  }
-
+package diagramclassifier;
+
+import java.io.*;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.lang.*;
+import java.lang.management.*;
+import org.argouml.model.*;
+import org.xml.sax.InputSource;
+import fi.tkk.ics.jbliss.Graph;
+import fi.tkk.ics.jbliss.DefaultReporter;
+import fi.tkk.ics.jbliss.Utils;
+
+/**
+ * This allows to classfiy the given list of ArgoUML class diagrams 
+ * represented in XMI 1.2 format.
+ * @author Alexey Tazin 
+ */
+public class DiagramClassifier {
+
+  // The number of class diagrams classified at once by several threads, 
+  // so that only the E-graphs of a window are held in memory and the 
+  // classified diagrams are journaled window by window
+  public static final int DIAGRAM_WINDOW_SIZE = 1024;
+
+  public static void main(String[] args) {
+    DiagramClassifierOptions options;
+    try {
+      options = DiagramClassifierOptions.parse(args);
+    } catch (IllegalArgumentException e) {
+      System.err.println(e.getMessage());
+      return;
+    }
+    classifyDiagrams(options);
+  }
+
+  /**
+   * Classifies the list of class diagrams as specified by the given options.
+   * @param options - the classifier options
+   */
+  public static void classifyDiagrams(DiagramClassifierOptions options) {
+    if (options.getMergeFileList() != null)
+      mergePartialCatalogs(options);
+    else if (options.getServerPort() > 0)
+      runServer(options);
+    else if (options.getWatchFolder() != null)
+      watchFolder(options);
+    else if (options.getWorkDir() != null)
+      runWorker(options);
+    else if (options.getSampleSize() > 0)
+      sampleDiagrams(options);
+    else if (options.getBundleFile() != null)
+      bundleDiagrams(options);
+    else if (options.getConvertFile() != null)
+      convertDiagrams(options);
+    else if (options.getGraphFile() != null)
+      classifyDiagramGraphs(options);
+    else if (options.isPipeline())
+      classifyDiagramsInPipeline(options);
+    else if (options.getParseWorkersNum() > 0)
+      classifyDiagramsInParseWorkers(options);
+    else
+      classifyDiagramsInProcess(options);
+  }
+
+  /**
+   * Initializes the ArgoUML model implementation of the backend given by 
+   * the options unless the XMI files are read by XmiGraphReader or 
+   * XmiByteScanner.
+   * @param options - the classifier options
+   * @return the ArgoUML model implemetation; null if the model is not used
+   */
+  public static ModelImplementation createModelImplementation(DiagramClassifierOptions options) {
+    if (options.isStaxParser() || options.isScanParser())
+      return null;
+    return InitializeModel.initializeModel(options.getModel());
+  }
+
+  /**
+   * Runs the classifier as a server described in DiagramClassifierServer.
+   * @param options - the classifier options
+   */
+  public static void runServer(DiagramClassifierOptions options) {
+    try {
+      DiagramClassifierServer server = new DiagramClassifierServer(options.getServerPort(), options.getModel(), 
+                                                                   options.getTimeout());
+      System.err.println("Listening on 127.0.0.1:" + options.getServerPort());
+      server.run();
+    } catch (Exception e) {
+      e.printStackTrace();
+    }
+  }
+
+  /**
+   * Classifies the diagrams dropped into the watched folder as described 
+   * in DiagramFolderWatcher.
+   * @param options - the classifier options
+   */
+  public static void watchFolder(DiagramClassifierOptions options) {
+    try {
+      ModelImplementation modelImpl = InitializeModel.initializeModel(options.getModel());
+      Path classTableFile = options.getClassTableFile() == null ? null : Paths.get(options.getClassTableFile());
+      DiagramFolderWatcher diagramFolderWatcher = 
+        new DiagramFolderWatcher(modelImpl, Paths.get(options.getWatchFolder()), classTableFile, 
+                                 options.getFlushInterval() * 1000L, options.getTimeout());
+      diagramFolderWatcher.run();
+    } catch (Exception e) {
+      e.printStackTrace();
+    }
+  }
+
+  /**
+   * Runs a worker of the work queue described in DiagramWorkQueue and 
+   * prints the class table when all the work is done.
+   * @param options - the classifier options
+   */
+  public static void runWorker(DiagramClassifierOptions options) {
+    try {
+      ModelImplementation modelImpl = createModelImplementation(options);
+      DiagramWorkQueue diagramWorkQueue = new DiagramWorkQueue(modelImpl, options);
+      printDiagramClassCatalog(options, diagramWorkQueue.run());
+    } catch (Exception e) {
+      e.printStackTrace();
+    }
+  }
+
+  /**
+   * Estimates the distribution of the classes from a sample of the input 
+   * as described in DiagramSampler.
+   * @param options - the classifier options
+   */
+  public static void sampleDiagrams(DiagramClassifierOptions options) {
+    try {
+      ModelImplementation modelImpl = createModelImplementation(options);
+      DiagramSampler diagramSampler = new DiagramSampler(modelImpl, options);
+      diagramSampler.run();
+      diagramSampler.print(System.out);
+    } catch (Exception e) {
+      e.printStackTrace();
+    }
+  }
+
+  /**
+   * Classifies the given list of class diagrams. The files representing 
+   * class diagram are stored in the current directory. The file names have 
+   * the diagramN.xmi format where N is an integer from 1 to diagramsNum.
+   * @param diagramsNum - the number of class diagrams to classify
+   */
+  public static void classifyDiagrams(int diagramsNum) {
+    classifyDiagrams(diagramsNum, 1);
+  }
+
+  /**
+   * Classifies the given list of class diagrams using the given number of 
+   * threads. The diagrams are parsed one by one since the ArgoUML model 
+   * subsystem is shared by the whole process. The classes of the parsed 
+   * diagrams are calculated in a work-stealing pool, the biggest diagrams 
+   * first. The class numbering and the output are the same as in the 
+   * sequential run.
+   * @param diagramsNum - the number of class diagrams to classify
+   *        threadsNum - the number of threads calculating diagram classes; 
+   *        the diagrams are classified sequentially if it is 1 or less
+   */
+  public static void classifyDiagrams(int diagramsNum, int threadsNum) {
+    classifyDiagrams(diagramsNum, threadsNum, 0);
+  }
+
+  /**
+   * Classifies the given list of class diagrams parsing them in the given 
+   * number of child processes. The child processes are described in 
+   * DiagramParserPool. The classes of the parsed diagrams are calculated 
+   * in the current process.
+   * @param diagramsNum - the number of class diagrams to classify
+   *        threadsNum - the number of threads calculating diagram classes
+   *        parseWorkersNum - the number of child processes parsing the 
+   *        diagrams; the diagrams are parsed in the current process if it 
+   *        is 0
+   */
+  public static void classifyDiagrams(int diagramsNum, int threadsNum, int parseWorkersNum) {
+    DiagramClassifierOptions options = new DiagramClassifierOptions();
+    options.setDiagramsNum(diagramsNum);
+    options.setThreadsNum(threadsNum);
+    options.setParseWorkersNum(parseWorkersNum);
+    classifyDiagrams(options);
+  }
+
+  /**
+   * Opens the source of the XMI files to classify.
+   * @param options - the classifier options
+   * @return the input source
+   */
+  public static DiagramInputSource openDiagramInputSource(DiagramClassifierOptions options) throws IOException {
+    if (options.getInputSpec() != null)
+      return DiagramInputSource.open(options.getInputSpec());
+    return new NumberedInputSource(options.getDiagramsNum());
+  }
+
+  /**
+   * Opens the source of the XMI files to classify into the given class 
+   * catalog. Only the shard of the input given by the options is 
+   * classified, and the ordinals of its diagrams are kept in the catalog 
+   * for the partial catalog. The diagrams already recorded in the journal 
+   * of the resumed run are skipped.
+   * @param options - the classifier options
+   *        diagramClassCatalog - the class catalog
+   * @return the input source
+   */
+  public static DiagramInputSource openDiagramInputSource(DiagramClassifierOptions options, 
+                                                          DiagramClassCatalog diagramClassCatalog) throws IOException {
+    DiagramInputSource diagramInputSource = openDiagramInputSource(options);
+    if (options.getShardsNum() > 0 || options.getPartialCatalogFile() != null)
+      diagramInputSource = new ShardInputSource(diagramInputSource, options.getShardIndex(), 
+                                                Math.max(options.getShardsNum(), 1), diagramClassCatalog.getDiagramOrdinalMap());
+    DiagramClassJournal diagramClassJournal = diagramClassCatalog.getDiagramClassJournal();
+    if (diagramClassJournal == null || diagramClassJournal.getRecordedDiagramNameSet().isEmpty())
+      return diagramInputSource;
+    return new SkippingInputSource(diagramInputSource, diagramClassJournal.getRecordedDiagramNameSet());
+  }
+
+  /**
+   * Prints the class table, or writes the partial catalog described in 
+   * PartialDiagramClassCatalog if the options ask for it.
+   * @param options - the classifier options
+   *        diagramClassCatalog - the class catalog
+   */
+  public static void printDiagramClassCatalog(DiagramClassifierOptions options, 
+                                              DiagramClassCatalog diagramClassCatalog) throws IOException {
+    if (options.getPartialCatalogFile() == null) {
+      if (options.getShardsNum() > 0)
+        PartialDiagramClassCatalog.write(diagramClassCatalog, System.out);
+      else
+        diagramClassCatalog.print(System.out);
+      return;
+    }
+    PrintStream out = new PrintStream(new FileOutputStream(options.getPartialCatalogFile()), false, "UTF-8");
+    try {
+      PartialDiagramClassCatalog.write(diagramClassCatalog, out);
+    } finally {
+      out.close();
+    }
+  }
+
+  /**
+   * Merges the partial catalogs given by the options and prints the class 
+   * table, or writes the merged partial catalog if the options ask for it.
+   * @param options - the classifier options
+   */
+  public static void mergePartialCatalogs(DiagramClassifierOptions options) {
+    try {
+      DiagramClassCatalog diagramClassCatalog = PartialDiagramClassCatalog.merge(options.getMergeFileList());
+      printDiagramClassCatalog(options, diagramClassCatalog);
+    } catch (Exception e) {
+      e.printStackTrace();
+    }
+  }
+
+  /**
+   * Opens the journal of the run as described in DiagramClassJournal.
+   * @param options - the classifier options
+   *        diagramClassCatalog - the empty class catalog
+   * @return the journal; null if the run is not journaled
+   */
+  public static DiagramClassJournal openDiagramClassJournal(DiagramClassifierOptions options, 
+                                                            DiagramClassCatalog diagramClassCatalog) throws IOException {
+    if (options.getJournalFile() == null)
+      return null;
+    return new DiagramClassJournal(new File(options.getJournalFile()), options.isResume(), diagramClassCatalog);
+  }
+
+  /**
+   * Creates the time budget of classifying a class diagram.
+   * @param options - the classifier options
+   * @return the time budget; null if there is no limit
+   */
+  public static DiagramDeadline createDiagramDeadline(DiagramClassifierOptions options) {
+    if (options.getTimeout() <= 0)
+      return null;
+    return new DiagramDeadline(options.getTimeout());
+  }
+
+  /**
+   * Adds the given class diagram to its class. If the calculation of the 
+   * class failed or ran out of time, the diagram is added to the failed 
+   * diagrams instead.
+   * @param diagramClassCatalog - the class catalog
+   *        diagramName - the class diagram name
+   *        graphClass - the graph representing the class of the diagram
+   *        diagramClassCalculator - the calculator of the class
+   * @return the index of the class of the diagram; -1 if it failed
+   */
+  public static int addDiagram(DiagramClassCatalog diagramClassCatalog, String diagramName, Graph<Integer> graphClass, 
+                                DiagramClassCalculator diagramClassCalculator) throws IOException {
+    if (diagramClassCalculator.getError() != null) {
+      addFailure(diagramClassCatalog, diagramName, diagramClassCalculator.getError());
+      return -1;
+    }
+    return diagramClassCatalog.addMember(graphClass, diagramClassCalculator.getGraphClassCertificate(), diagramName);
+  }
+
+  /**
+   * Reports the given class diagram that could not be classified and adds 
+   * it to the failed diagrams.
+   * @param diagramClassCatalog - the class catalog
+   *        diagramName - the class diagram name
+   *        error - the error that stopped classifying the diagram
+   */
+  public static void addFailure(DiagramClassCatalog diagramClassCatalog, String diagramName, Throwable error) 
+    throws IOException {
+    System.err.println("Cannot classify " + diagramName + ": " + error);
+    diagramClassCatalog.addFailure(diagramName, DiagramClassCatalog.getFailure(error));
+  }
+
+  private static void classifyDiagramsInParseWorkers(DiagramClassifierOptions options) {
+    try {
+
+        DiagramClassCatalog diagramClassCatalog = new DiagramClassCatalog();
+        DiagramClassJournal diagramClassJournal = openDiagramClassJournal(options, diagramClassCatalog);
+        try {
+
+          DiagramInputSource diagramInputSource = openDiagramInputSource(options, diagramClassCatalog);
+          DiagramParserPool diagramParserPool = new DiagramParserPool(options.getParseWorkersNum(), options.getModel(), 
+                                                                    options.getTimeout());
+          try {
+
+            // The diagrams are parsed and classified in windows, and each 
+            // window is added to the catalog in the input order
+            ArrayList<String> diagramFileNameList = new ArrayList<String>();
+            HashSet<String> contentHashSet = new HashSet<String>();
+            // The failures of the diagrams with the given content hashes, 
+            // which their duplicates share
+            HashMap<String, String> contentHashFailureMap = new HashMap<String, String>();
+            while (diagramInputSource.hasNext()) {
+              diagramFileNameList.add(diagramInputSource.next());
+              if (diagramFileNameList.size() < DIAGRAM_WINDOW_SIZE && diagramInputSource.hasNext())
+                continue;
+
+              // The diagrams that are not coverable or have the content hash 
+              // of an earlier diagram are not sent to the child processes, a 
+              // file that cannot be read is left to them
+              boolean[] notCoverable = new boolean[diagramFileNameList.size()];
+              String[] contentHashes = new String[diagramFileNameList.size()];
+              boolean[] duplicate = new boolean[diagramFileNameList.size()];
+              ArrayList<String> parsedFileNameList = new ArrayList<String>();
+              for (int i = 0; i < diagramFileNameList.size(); i++) {
+                if (options.isPrescan()) {
+                  try {
+                    notCoverable[i] = isNotCoverable(options, XmiPrefetcher.mapFile(diagramFileNameList.get(i), false));
+                  } catch (IOException e) {
+                    notCoverable[i] = false;
+                  }
+                }
+                if (!notCoverable[i] && options.isDedup()) {
+                  try {
+                    contentHashes[i] = calculateContentHash(diagramFileNameList.get(i));
+                  } catch (Exception e) {
+                    contentHashes[i] = null;
+                  }
+                  duplicate[i] = contentHashes[i] != null && !contentHashSet.add(contentHashes[i]);
+                }
+                if (!notCoverable[i] && !duplicate[i])
+                  parsedFileNameList.add(diagramFileNameList.get(i));
+              }
+
+              ArrayList<String> parseFailureList = new ArrayList<String>();
+              ArrayList<DiagramGraph> parsedGraphList = diagramParserPool.parse(parsedFileNameList, parseFailureList);
+              ArrayList<DiagramGraph> diagramGraphList = new ArrayList<DiagramGraph>();
+              ArrayList<String> failureList = new ArrayList<String>();
+              Iterator<DiagramGraph> parsedGraphIterator = parsedGraphList.iterator();
+              Iterator<String> parseFailureIterator = parseFailureList.iterator();
+              for (int i = 0; i < diagramFileNameList.size(); i++) {
+                boolean parsed = !notCoverable[i] && !duplicate[i];
+                diagramGraphList.add(parsed ? parsedGraphIterator.next() : null);
+                failureList.add(parsed ? parseFailureIterator.next() : null);
+              }
+
+              ArrayList<DiagramClassCalculator> diagramClassCalculatorList = new ArrayList<DiagramClassCalculator>();
+              for (int i = 0; i < diagramGraphList.size(); i++) {
+                DiagramClassCalculator diagramClassCalculator = new DiagramClassCalculator();
+                diagramClassCalculator.setDeadline(createDiagramDeadline(options));
+                diagramClassCalculatorList.add(diagramClassCalculator);
+              }
+              ArrayList<Graph<Integer>> graphClassList = 
+                calculateDiagramClasses(diagramGraphList, diagramClassCalculatorList, Math.max(options.getThreadsNum(), 1));
+
+              for (int i = 0; i < diagramFileNameList.size(); i++) {
+                String contentHash = contentHashes[i];
+                int graphClassIndex = -1;
+                String failure = null;
+                if (notCoverable[i]) {
+                  diagramClassCatalog.addMember(null, null, diagramFileNameList.get(i));
+                  continue;
+                } else if (duplicate[i]) {
+                  if (diagramClassCatalog.addMemberByContentHash(contentHash, diagramFileNameList.get(i)) < 0)
+                    diagramClassCatalog.addFailure(diagramFileNameList.get(i), contentHashFailureMap.get(contentHash));
+                  continue;
+                } else if (diagramGraphList.get(i) == null) {
+                  diagramClassCatalog.addFailure(diagramFileNameList.get(i), failureList.get(i));
+                  failure = failureList.get(i);
+                } else {
+                  graphClassIndex = addDiagram(diagramClassCatalog, diagramFileNameList.get(i), graphClassList.get(i), 
+                                               diagramClassCalculatorList.get(i));
+                  if (graphClassIndex < 0)
+                    failure = DiagramClassCatalog.getFailure(diagramClassCalculatorList.get(i).getError());
+                }
+                if (contentHash != null && graphClassIndex >= 0)
+                  diagramClassCatalog.putContentHash(contentHash, graphClassIndex);
+                else if (contentHash != null)
+                  contentHashFailureMap.put(contentHash, failure);
+              }
+              diagramFileNameList.clear();
+            }
+
+          } finally {
+            diagramParserPool.close();
+            diagramInputSource.close();
+          }
+
+        } finally {
+          if (diagramClassJournal != null)
+            diagramClassJournal.close();
+        }
+        printDiagramClassCatalog(options, diagramClassCatalog);
+
+    } catch (Exception e) {
+      e.printStackTrace();
+    }
+  }
+
+  /**
+   * Calculates the content hash of the given XMI file as described in 
+   * XmiContentHash.
+   * @param xmiFileName - the XMI file name
+   * @return the content hash
+   */
+  private static String calculateContentHash(String xmiFileName) throws Exception {
+    InputStream inputStream = XmiFiles.openXmiStream(xmiFileName);
+    try {
+      return XmiContentHash.calculateHash(inputStream);
+    } finally {
+      inputStream.close();
+    }
+  }
+
+  /**
+   * Classifies the given class diagram within the time budget given by the 
+   * options and adds it to its class, or to the failed diagrams. With the 
+   * prescan option, a diagram that is not coverable is added to the class 
+   * of the uncovered diagrams without being parsed. With the dedup option, 
+   * a diagram with the content hash of a diagram classified before is added 
+   * to its class without being parsed.
+   * @param modelImpl - the ArgoUML model implemetation
+   *        options - the classifier options
+   *        diagramClassCatalog - the class catalog
+   *        xmiFile - the XMI file
+   * @return the index of the class of the diagram; -1 if it failed
+   */
+  public static int classifyDiagram(ModelImplementation modelImpl, DiagramClassifierOptions options, 
+                                     DiagramClassCatalog diagramClassCatalog, XmiPrefetcher.XmiFile xmiFile) 
+    throws IOException {
+    DiagramDeadline deadline = createDiagramDeadline(options);
+    DiagramGraph diagramGraph;
+    String contentHash = null;
+    try {
+      if (isNotCoverable(options, xmiFile))
+        return diagramClassCatalog.addMember(null, null, xmiFile.getFileName());
+      if (options.isDedup()) {
+        contentHash = XmiContentHash.calculateHash(xmiFile.getInputStream());
+        int graphClassIndex = diagramClassCatalog.addMemberByContentHash(contentHash, xmiFile.getFileName());
+        if (graphClassIndex >= 0)
+          return graphClassIndex;
+      }
+      diagramGraph = readDiagramGraph(modelImpl, options, xmiFile, deadline);
+    } catch (Exception e) {
+      addFailure(diagramClassCatalog, xmiFile.getFileName(), e);
+      return -1;
+    }
+
+    DiagramClassCalculator diagramClassCalculator = new DiagramClassCalculator();
+    diagramClassCalculator.setDeadline(deadline);
+    Graph<Integer> graphClass = diagramClassCalculator.calculateDiagramClass(diagramGraph);
+
+    int graphClassIndex = addDiagram(diagramClassCatalog, xmiFile.getFileName(), graphClass, diagramClassCalculator);
+    if (contentHash != null && graphClassIndex >= 0)
+      diagramClassCatalog.putContentHash(contentHash, graphClassIndex);
+    return graphClassIndex;
+  }
+
+  /**
+   * Returns true if the prescan option is given and XmiPrescanner finds an 
+   * element the basic templates do not support in the given XMI file.
+   * @param options - the classifier options
+   *        xmiFile - the XMI file
+   */
+  public static boolean isNotCoverable(DiagramClassifierOptions options, XmiPrefetcher.XmiFile xmiFile) 
+    throws IOException {
+    return options.isPrescan() && XmiPrescanner.findUnsupportedElement(xmiFile.getXmiBuffer()) != null;
+  }
+
+  private static void classifyDiagramsInProcess(DiagramClassifierOptions options) {
+    try {
+
+        ModelImplementation modelImpl = createModelImplementation(options);
+
+        DiagramClassCatalog diagramClassCatalog = new DiagramClassCatalog();
+        DiagramClassJournal diagramClassJournal = openDiagramClassJournal(options, diagramClassCatalog);
+
+        DiagramInputSource diagramInputSource = openDiagramInputSource(options, diagramClassCatalog);
+        XmiPrefetcher xmiPrefetcher = new XmiPrefetcher(diagramInputSource, options.getPrefetchNum(), options.isScanParser());
+        try {
+
+          if (options.getThreadsNum() <= 1) {
+
+            while (xmiPrefetcher.hasNext())
+              classifyDiagram(modelImpl, options, diagramClassCatalog, xmiPrefetcher.next());
+
+          } else {
+
+            // The diagrams are classified in windows, and each window is 
+            // added to the catalog in the input order
+            ArrayList<String> diagramFileNameList = new ArrayList<String>();
+            ArrayList<DiagramGraph> diagramGraphList = new ArrayList<DiagramGraph>();
+            ArrayList<DiagramClassCalculator> diagramClassCalculatorList = new ArrayList<DiagramClassCalculator>();
+            ArrayList<Exception> parseErrorList = new ArrayList<Exception>();
+            ArrayList<String> contentHashList = new ArrayList<String>();
+            HashSet<String> contentHashSet = new HashSet<String>();
+            // The failures of the diagrams with the given content hashes, 
+            // which their duplicates share
+            HashMap<String, String> contentHashFailureMap = new HashMap<String, String>();
+            while (xmiPrefetcher.hasNext()) {
+              XmiPrefetcher.XmiFile xmiFile = xmiPrefetcher.next();
+              DiagramDeadline deadline = createDiagramDeadline(options);
+              DiagramClassCalculator diagramClassCalculator = new DiagramClassCalculator();
+              diagramClassCalculator.setDeadline(deadline);
+              diagramFileNameList.add(xmiFile.getFileName());
+              diagramClassCalculatorList.add(diagramClassCalculator);
+              String contentHash = null;
+              try {
+                // A diagram that is not coverable or has the content hash of 
+                // an earlier diagram gets no E-graph and no error
+                if (isNotCoverable(options, xmiFile))
+                  diagramGraphList.add(null);
+                else {
+                  if (options.isDedup())
+                    contentHash = XmiContentHash.calculateHash(xmiFile.getInputStream());
+                  if (contentHash != null && !contentHashSet.add(contentHash))
+                    diagramGraphList.add(null);
+                  else
+                    diagramGraphList.add(readDiagramGraph(modelImpl, options, xmiFile, deadline));
+                }
+                parseErrorList.add(null);
+              } catch (Exception e) {
+                diagramGraphList.add(null);
+                parseErrorList.add(e);
+              }
+              contentHashList.add(contentHash);
+              if (diagramFileNameList.size() < DIAGRAM_WINDOW_SIZE && xmiPrefetcher.hasNext())
+                continue;
+
+              ArrayList<Graph<Integer>> graphClassList = 
+                calculateDiagramClasses(diagramGraphList, diagramClassCalculatorList, options.getThreadsNum());
+
+              for (int i = 0; i < diagramFileNameList.size(); i++) {
+                contentHash = contentHashList.get(i);
+                int graphClassIndex = -1;
+                String failure = null;
+                if (parseErrorList.get(i) != null) {
+                  addFailure(diagramClassCatalog, diagramFileNameList.get(i), parseErrorList.get(i));
+                  failure = DiagramClassCatalog.getFailure(parseErrorList.get(i));
+                } else if (diagramGraphList.get(i) != null) {
+                  graphClassIndex = addDiagram(diagramClassCatalog, diagramFileNameList.get(i), graphClassList.get(i), 
+                                               diagramClassCalculatorList.get(i));
+                  if (graphClassIndex < 0)
+                    failure = DiagramClassCatalog.getFailure(diagramClassCalculatorList.get(i).getError());
+                } else if (contentHash == null)
+                  diagramClassCatalog.addMember(null, null, diagramFileNameList.get(i));
+                else {
+                  if (diagramClassCatalog.addMemberByContentHash(contentHash, diagramFileNameList.get(i)) < 0)
+                    diagramClassCatalog.addFailure(diagramFileNameList.get(i), contentHashFailureMap.get(contentHash));
+                  continue;
+                }
+                if (contentHash != null && graphClassIndex >= 0)
+                  diagramClassCatalog.putContentHash(contentHash, graphClassIndex);
+                else if (contentHash != null)
+                  contentHashFailureMap.put(contentHash, failure);
+              }
+              diagramFileNameList.clear();
+              diagramGraphList.clear();
+              diagramClassCalculatorList.clear();
+              parseErrorList.clear();
+              contentHashList.clear();
+            }
+
+          }
+
+        } finally {
+          xmiPrefetcher.close();
+          diagramInputSource.close();
+          if (diagramClassJournal != null)
+            diagramClassJournal.close();
+        }
+
+        printDiagramClassCatalog(options, diagramClassCatalog);
+        DiagramClassCalculator.printStatistics(System.err);
+        DiagramModelSnapshot.printStatistics(System.err);
+        printHeapUsage(System.err);
+
+    } catch (Exception e) {
+      e.printStackTrace();
+    }
+  }
+
+  /**
+   * Classifies the given list of class diagrams in the staged pipeline 
+   * described in DiagramPipeline. The statistics of the pipeline stages 
+   * are printed to the standard error.
+   * @param options - the classifier options
+   */
+  public static void classifyDiagramsInPipeline(DiagramClassifierOptions options) {
+    try {
+
+        ModelImplementation modelImpl = createModelImplementation(options);
+
+        DiagramPipeline diagramPipeline = new DiagramPipeline(modelImpl, options);
+        DiagramClassJournal diagramClassJournal = openDiagramClassJournal(options, diagramPipeline.getDiagramClassCatalog());
+        DiagramInputSource diagramInputSource = openDiagramInputSource(options, diagramPipeline.getDiagramClassCatalog());
+        try {
+          DiagramClassCatalog diagramClassCatalog = diagramPipeline.run(diagramInputSource);
+          printDiagramClassCatalog(options, diagramClassCatalog);
+        } finally {
+          diagramPipeline.printStatistics(System.err);
+          DiagramClassCalculator.printStatistics(System.err);
+          DiagramModelSnapshot.printStatistics(System.err);
+          printHeapUsage(System.err);
+          diagramInputSource.close();
+          if (diagramClassJournal != null)
+            diagramClassJournal.close();
+        }
+
+    } catch (Exception e) {
+      e.printStackTrace();
+    }
+  }
+
+  /**
+   * Writes the XMI contents of the given list of class diagrams to the XMI 
+   * bundle given by the options, described in XmiBundle, under their file 
+   * names. Archives and compressed files are stored as plain XMI. The 
+   * bundle is written only if all the diagrams are read.
+   * @param options - the classifier options
+   */
+  public static void bundleDiagrams(DiagramClassifierOptions options) {
+    try {
+
+        DiagramInputSource diagramInputSource = openDiagramInputSource(options);
+        XmiBundle.Writer xmiBundleWriter = new XmiBundle.Writer(options.getBundleFile());
+        int diagramsNum = 0;
+        try {
+          while (diagramInputSource.hasNext()) {
+            String diagramFileName = diagramInputSource.next();
+            byte[] xmiBytes;
+            try {
+              xmiBytes = XmiFiles.readXmiBytes(diagramFileName);
+            } catch (IOException e) {
+              throw new IOException("Cannot read " + diagramFileName + ", the bundle is not written", e);
+            }
+            xmiBundleWriter.add(diagramFileName, xmiBytes);
+            diagramsNum++;
+          }
+          xmiBundleWriter.finish();
+        } finally {
+          xmiBundleWriter.close();
+          diagramInputSource.close();
+        }
+        System.err.println("Bundled " + diagramsNum + " diagrams to " + options.getBundleFile());
+
+    } catch (Exception e) {
+      e.printStackTrace();
+    }
+  }
+
+  /**
+   * Parses the given list of class diagrams and writes their E-graphs to 
+   * the graph file given by the options, described in DiagramGraphWriter, 
+   * so that they can be classified many times without being parsed again. 
+   * The diagrams that could not be parsed are written as failures. The 
+   * graph file is written as a temporary file, which replaces it only once 
+   * all the diagrams are written.
+   * @param options - the classifier options
+   */
+  public static void convertDiagrams(DiagramClassifierOptions options) {
+    try {
+
+        ModelImplementation modelImpl = createModelImplementation(options);
+
+        DiagramInputSource diagramInputSource = openDiagramInputSource(options);
+        XmiPrefetcher xmiPrefetcher = new XmiPrefetcher(diagramInputSource, options.getPrefetchNum(), options.isScanParser());
+        Path graphFile = Paths.get(options.getConvertFile());
+        Path tempFile = graphFile.resolveSibling(graphFile.getFileName() + ".tmp");
+        DiagramGraphWriter diagramGraphWriter = new DiagramGraphWriter(tempFile.toFile());
+        boolean finished = false;
+        int diagramsNum = 0;
+        int failedDiagramsNum = 0;
+        try {
+          while (xmiPrefetcher.hasNext()) {
+            XmiPrefetcher.XmiFile xmiFile = xmiPrefetcher.next();
+            try {
+              DiagramGraph diagramGraph = readDiagramGraph(modelImpl, options, xmiFile, createDiagramDeadline(options));
+              diagramGraphWriter.write(xmiFile.getFileName(), diagramGraph);
+            } catch (Exception e) {
+              System.err.println("Cannot parse " + xmiFile.getFileName() + ": " + e);
+              diagramGraphWriter.writeFailure(xmiFile.getFileName(), DiagramClassCatalog.getFailure(e));
+              failedDiagramsNum++;
+            }
+            diagramsNum++;
+          }
+          diagramGraphWriter.finish();
+          Files.move(tempFile, graphFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+          finished = true;
+        } finally {
+          if (!finished) {
+            diagramGraphWriter.close();
+            Files.deleteIfExists(tempFile);
+          }
+          xmiPrefetcher.close();
+          diagramInputSource.close();
+        }
+        System.err.println("Converted " + diagramsNum + " diagrams to " + options.getConvertFile() + ", " + 
+                           failedDiagramsNum + " failed");
+
+    } catch (Exception e) {
+      e.printStackTrace();
+    }
+  }
+
+  /**
+   * Classifies the E-graphs of the graph file given by the options. The 
+   * file is read sequentially, and with several threads its E-graphs are 
+   * classified in windows of DIAGRAM_WINDOW_SIZE diagrams, each added to 
+   * the catalog in the file order. The diagrams already recorded in the journal 
+   * of the resumed run are skipped.
+   * @param options - the classifier options
+   */
+  public static void classifyDiagramGraphs(DiagramClassifierOptions options) {
+    try {
+
+        DiagramClassCatalog diagramClassCatalog = new DiagramClassCatalog();
+        DiagramClassJournal diagramClassJournal = openDiagramClassJournal(options, diagramClassCatalog);
+        Set<String> skippedDiagramNameSet = diagramClassJournal == null ? Collections.<String>emptySet() 
+                                                                        : diagramClassJournal.getRecordedDiagramNameSet();
+
+        DiagramGraphReader diagramGraphReader = new DiagramGraphReader(new File(options.getGraphFile()));
+        try {
+
+          ArrayList<String> diagramNameList = new ArrayList<String>();
+          ArrayList<DiagramGraph> diagramGraphList = new ArrayList<DiagramGraph>();
+          ArrayList<DiagramClassCalculator> diagramClassCalculatorList = new ArrayList<DiagramClassCalculator>();
+          ArrayList<String> failureList = new ArrayList<String>();
+          while (diagramGraphReader.next()) {
+            String diagramName = diagramGraphReader.getDiagramName();
+            if (skippedDiagramNameSet.contains(diagramName))
+              continue;
+            DiagramClassCalculator diagramClassCalculator = new DiagramClassCalculator();
+            diagramClassCalculator.setDeadline(createDiagramDeadline(options));
+            if (options.getThreadsNum() <= 1) {
+              if (diagramGraphReader.getFailure() != null)
+                diagramClassCatalog.addFailure(diagramName, diagramGraphReader.getFailure());
+              else {
+                Graph<Integer> graphClass = diagramClassCalculator.calculateDiagramClass(diagramGraphReader.getDiagramGraph());
+                addDiagram(diagramClassCatalog, diagramName, graphClass, diagramClassCalculator);
+              }
+              continue;
+            }
+            diagramNameList.add(diagramName);
+            diagramGraphList.add(diagramGraphReader.getDiagramGraph());
+            diagramClassCalculatorList.add(diagramClassCalculator);
+            failureList.add(diagramGraphReader.getFailure());
+            if (diagramNameList.size() == DIAGRAM_WINDOW_SIZE)
+              classifyDiagramGraphWindow(options, diagramClassCatalog, diagramNameList, diagramGraphList, 
+                                         diagramClassCalculatorList, failureList);
+          }
+          if (!diagramNameList.isEmpty())
+            classifyDiagramGraphWindow(options, diagramClassCatalog, diagramNameList, diagramGraphList, 
+                                       diagramClassCalculatorList, failureList);
+
+        } finally {
+          diagramGraphReader.close();
+          if (diagramClassJournal != null)
+            diagramClassJournal.close();
+        }
+
+        printDiagramClassCatalog(options, diagramClassCatalog);
+
+    } catch (Exception e) {
+      e.printStackTrace();
+    }
+  }
+
+  /**
+   * Classifies the given window of E-graphs of a graph file with several 
+   * threads, adds the diagrams to the catalog in the file order and clears 
+   * the window.
+   * @param options - the classifier options
+   *        diagramClassCatalog - the class diagram catalog
+   *        diagramNameList - the class diagram names
+   *        diagramGraphList - the class diagram E-graphs; null for the 
+   *        diagrams that could not be parsed
+   *        diagramClassCalculatorList - the calculators of the classes
+   *        failureList - the failures of the diagrams that could not be 
+   *        parsed; null for the others
+   */
+  private static void classifyDiagramGraphWindow(DiagramClassifierOptions options, 
+                                                 DiagramClassCatalog diagramClassCatalog, 
+                                                 ArrayList<String> diagramNameList, 
+                                                 ArrayList<DiagramGraph> diagramGraphList, 
+                                                 ArrayList<DiagramClassCalculator> diagramClassCalculatorList, 
+                                                 ArrayList<String> failureList) throws Exception {
+    ArrayList<Graph<Integer>> graphClassList = 
+      calculateDiagramClasses(diagramGraphList, diagramClassCalculatorList, options.getThreadsNum());
+    for (int i = 0; i < diagramNameList.size(); i++)
+      if (failureList.get(i) != null)
+        diagramClassCatalog.addFailure(diagramNameList.get(i), failureList.get(i));
+      else
+        addDiagram(diagramClassCatalog, diagramNameList.get(i), graphClassList.get(i), 
+                   diagramClassCalculatorList.get(i));
+    diagramNameList.clear();
+    diagramGraphList.clear();
+    diagramClassCalculatorList.clear();
+    failureList.clear();
+  }
+
+  /**
+   * Parses the given XMI file and generates an E-graph representing the 
+   * class diagram stored in it. The file may also be an ArgoUML project 
+   * archive as described in XmiFiles.
+   * @param modelImpl - the ArgoUML model implemetation
+   *        xmiFile - the XMI file
+   * @return the E-graph representing the class diagram
+   */
+  public static DiagramGraph readDiagramGraph(ModelImplementation modelImpl, File xmiFile) throws Exception {
+    return readDiagramGraph(modelImpl, xmiFile, null);
+  }
+
+  /**
+   * Parses the given XMI file and generates an E-graph representing the 
+   * class diagram stored in it within the given time budget.
+   * @param modelImpl - the ArgoUML model implemetation
+   *        xmiFile - the XMI file
+   *        deadline - the time budget; null if there is no limit
+   * @return the E-graph representing the class diagram
+   * @throws DiagramTimeoutException if the time budget is spent
+   */
+  public static DiagramGraph readDiagramGraph(ModelImplementation modelImpl, File xmiFile, DiagramDeadline deadline) 
+    throws Exception {
+    InputStream inputStream = XmiFiles.openXmiStream(xmiFile.getPath());
+    try {
+      return readDiagramGraph(modelImpl, inputStream, deadline);
+    } finally {
+      inputStream.close();
+    }
+  }
+
+  /**
+   * Parses the given XMI contents and generates an E-graph representing 
+   * the class diagram stored in it.
+   * @param modelImpl - the ArgoUML model implemetation
+   *        inputStream - the XMI contents
+   * @return the E-graph representing the class diagram
+   */
+  public static DiagramGraph readDiagramGraph(ModelImplementation modelImpl, InputStream inputStream) throws Exception {
+    return readDiagramGraph(modelImpl, inputStream, null);
+  }
+
+  /**
+   * Prints the heap used after a full garbage collection and the peak heap 
+   * usage of the run. Since the model extent of each diagram is deleted 
+   * once its E-graph is generated, the heap used after the collection 
+   * should not depend on the number of diagrams classified.
+   * @param printStream - the stream to print to
+   */
+  public static void printHeapUsage(PrintStream printStream) {
+    System.gc();
+    long usedHeap = 0;
+    long peakHeap = 0;
+    for (MemoryPoolMXBean memoryPool : ManagementFactory.getMemoryPoolMXBeans())
+      if (memoryPool.getType() == MemoryType.HEAP) {
+        usedHeap += memoryPool.getUsage().getUsed();
+        peakHeap += memoryPool.getPeakUsage().getUsed();
+      }
+    printStream.println("Heap: " + (usedHeap >> 20) + " MB used after GC, " + (peakHeap >> 20) + " MB peak");
+  }
+
+  /**
+   * Parses the given XMI contents and generates an E-graph representing 
+   * the class diagram stored in it within the given time budget. The 
+   * parser cannot be stopped, so the budget is checked after each step.
+   * Without the ArgoUML model, the contents are read by XmiGraphReader.
+   * @param modelImpl - the ArgoUML model implemetation; null if the model 
+   *        is not used
+   *        inputStream - the XMI contents
+   *        deadline - the time budget; null if there is no limit
+   * @return the E-graph representing the class diagram
+   * @throws DiagramTimeoutException if the time budget is spent
+   */
+  public static DiagramGraph readDiagramGraph(ModelImplementation modelImpl, InputStream inputStream, 
+                                              DiagramDeadline deadline) throws Exception {
+    if (deadline == null)
+      return readDiagramGraphNow(modelImpl, inputStream);
+    deadline.start();
+    try {
+      DiagramGraph diagramGraph = readDiagramGraphNow(modelImpl, inputStream);
+      deadline.check();
+      return diagramGraph;
+    } finally {
+      deadline.stop();
+    }
+  }
+
+  /**
+   * Reads the given XMI file read ahead by XmiPrefetcher with the parser 
+   * given by the options within the given time budget.
+   * @param modelImpl - the ArgoUML model implemetation; null if the model 
+   *        is not used
+   *        options - the classifier options
+   *        xmiFile - the XMI file
+   *        deadline - the time budget; null if there is no limit
+   * @return the E-graph representing the class diagram
+   * @throws DiagramTimeoutException if the time budget is spent
+   */
+  public static DiagramGraph readDiagramGraph(ModelImplementation modelImpl, DiagramClassifierOptions options, 
+                                              XmiPrefetcher.XmiFile xmiFile, DiagramDeadline deadline) throws Exception {
+    if (!options.isScanParser())
+      return readDiagramGraph(modelImpl, xmiFile.getInputStream(), deadline);
+    if (deadline != null)
+      deadline.start();
+    try {
+      DiagramGraph diagramGraph = XmiByteScanner.readDiagramGraph(xmiFile.getXmiBuffer());
+      if (deadline != null)
+        deadline.check();
+      return diagramGraph;
+    } finally {
+      if (deadline != null)
+        deadline.stop();
+    }
+  }
+
+  private static DiagramGraph readDiagramGraphNow(ModelImplementation modelImpl, InputStream inputStream) throws Exception {
+    if (modelImpl == null)
+      return XmiGraphReader.readDiagramGraph(inputStream);
+    Object model = DiagramGraphGenerator.parseModel(new InputSource(inputStream));
+    try {
+      DiagramGraph diagramGraph = new DiagramGraph();
+      DiagramGraphGenerator.generateDiagramGraph(modelImpl, model, diagramGraph);
+      return diagramGraph;
+    } finally {
+      DiagramGraphGenerator.deleteModel(model);
+    }
+  }
+
+  /**
+   * Calculates the classes of the given class diagrams in a work-stealing 
+   * pool. The diagrams are scheduled in the order of decreasing E-graph 
+   * size so that a big diagram is not left to the end of the run.
+   * @param diagramGraphList - the class diagram E-graphs; null for the 
+   *        diagrams that could not be read, which are skipped
+   *        diagramClassCalculatorList - the calculators of the classes, 
+   *        which keep the certificates and the errors
+   *        threadsNum - the number of threads
+   * @return the list of graphs of the complex template diagrams 
+   *         representing the classes of the given class diagrams in the 
+   *         order of the given E-graphs
+   */
+  public static ArrayList<Graph<Integer>> calculateDiagramClasses(final ArrayList<DiagramGraph> diagramGraphList, 
+                                                                  ArrayList<DiagramClassCalculator> diagramClassCalculatorList, 
+                                                                  int threadsNum) throws Exception {
+    ArrayList<Integer> diagramOrderList = new ArrayList<Integer>();
+    for (int i = 0; i < diagramGraphList.size(); i++)
+      if (diagramGraphList.get(i) != null)
+        diagramOrderList.add(i);
+    Collections.sort(diagramOrderList, new Comparator<Integer>() {
+      public int compare(Integer i1, Integer i2) {
+        return getDiagramGraphSize(diagramGraphList.get(i2)) - getDiagramGraphSize(diagramGraphList.get(i1));
+      }
+    });
+
+    ArrayList<ForkJoinTask<Graph<Integer>>> taskList = 
+      new ArrayList<ForkJoinTask<Graph<Integer>>>(Collections.<ForkJoinTask<Graph<Integer>>>nCopies(diagramGraphList.size(), null));
+    DiagramClassCalculator.ensureLabelThreadsNum(threadsNum);
+    ForkJoinPool pool = new ForkJoinPool(threadsNum);
+    try {
+      for (Integer i : diagramOrderList) {
+        final DiagramGraph diagramGraph = diagramGraphList.get(i);
+        final DiagramClassCalculator diagramClassCalculator = diagramClassCalculatorList.get(i);
+        taskList.set(i, pool.submit(new Callable<Graph<Integer>>() {
+          public Graph<Integer> call() {
+            return diagramClassCalculator.calculateDiagramClass(diagramGraph);
+          }
+        }));
+      }
+      ArrayList<Graph<Integer>> graphClassList = new ArrayList<Graph<Integer>>();
+      for (ForkJoinTask<Graph<Integer>> task : taskList)
+        graphClassList.add(task == null ? null : task.get());
+      return graphClassList;
+    } finally {
+      pool.shutdown();
+    }
+  }
+
+  /**
+   * Returns the size of the given E-graph used to estimate the time of 
+   * calculating its class.
+   * @param diagramGraph - the class diagram E-graph
+   * @return the number of graph nodes, graph edges and attribute edges
+   */
+  public static int getDiagramGraphSize(DiagramGraph diagramGraph) {
+    return diagramGraph.getNodeList().size() + diagramGraph.getEdgeList().size() + 
+           diagramGraph.getAttributeEdgeList().size();
+  }
+
 }
\ No newline at end of file
@@ -0,0 +1,599 @@
+package diagramclassifier;
+
+import java.util.*;
+
+/**
+ * This class represents the command line options of the classifier.
+ * @author Alexey Tazin 
+ */
+public class DiagramClassifierOptions {
+
+  // The number of class diagrams to classify
+  private int diagramsNum = 0;
+
+  // The specification of the input source; null if the diagrams are 
+  // diagram1.xmi, ..., diagramN.xmi in the current directory
+  private String inputSpec = null;
+
+  // The port the server listens on; 0 if the classifier is not a server
+  private int serverPort = 0;
+
+  // The folder watched for new diagrams; null if no folder is watched
+  private String watchFolder = null;
+
+  // The file the class table is written to; null for the standard output
+  private String classTableFile = null;
+
+  // The interval between writing the class table in seconds
+  private int flushInterval = 60;
+
+  // The number of threads calculating diagram classes
+  private int threadsNum = 1;
+
+  // The number of child processes parsing the diagrams
+  private int parseWorkersNum = 0;
+
+  // The number of XMI files read ahead of the classifier
+  private int prefetchNum = 0;
+
+  // True if the diagrams are classified by the staged pipeline
+  private boolean pipeline = false;
+
+  // The number of threads of each pipeline stage
+  private HashMap<String, Integer> stageThreadsNumMap = new HashMap<String, Integer>();
+
+  // The capacity of the queues between the pipeline stages
+  private int stageQueueSize = 64;
+
+  // The journal of the run; null if the run is not journaled
+  private String journalFile = null;
+
+  // True if the run recorded in the journal is resumed
+  private boolean resume = false;
+
+  // The time budget of classifying a class diagram in milliseconds; 0 if 
+  // there is no limit
+  private long timeout = 0;
+
+  // The index of the shard of the input from 0 to shardsNum - 1
+  private int shardIndex = 0;
+
+  // The number of shards of the input; 0 if the input is not sharded
+  private int shardsNum = 0;
+
+  // The file the partial catalog is written to; null if the class table 
+  // is printed
+  private String partialCatalogFile = null;
+
+  // The partial catalogs to merge; null if no catalogs are merged
+  private ArrayList<String> mergeFileList = null;
+
+  // The shared work directory; null if there is no work queue
+  private String workDir = null;
+
+  // The id of the worker of the work queue
+  private String workerId = java.lang.management.ManagementFactory.getRuntimeMXBean().getName();
+
+  // The number of diagrams in a chunk of the work queue
+  private int chunkSize = 100;
+
+  // The time a lease of the work queue is valid without renewal in seconds
+  private int leaseTime = 300;
+
+  // The maximum number of sampled diagrams; 0 if the input is not sampled
+  private int sampleSize = 0;
+
+  // The number of strata of the sample by file size
+  private int strataNum = 1;
+
+  // The half-width of the confidence intervals at which sampling stops
+  private double precision = 0.01;
+
+  // The confidence level of the intervals
+  private double confidence = 0.95;
+
+  // The seed of the random sample
+  private long seed = 1;
+
+  // The XMI parser: mdr for the ArgoUML model, stax for XmiGraphReader, 
+  // scan for XmiByteScanner
+  private String parser = "mdr";
+
+  // The ArgoUML model backend: mdr or euml
+  private String model = "mdr";
+
+  // True if the diagrams with elements the basic templates do not support 
+  // are found by XmiPrescanner and not parsed
+  private boolean prescan = false;
+
+  // True if the diagrams with the content hash of a diagram classified 
+  // before are added to its class without being parsed
+  private boolean dedup = false;
+
+  // The XMI bundle the input is written to; null if the diagrams are 
+  // classified
+  private String bundleFile = null;
+
+  // The graph file the E-graphs of the input are written to; null if the 
+  // diagrams are classified
+  private String convertFile = null;
+
+  // The graph file the E-graphs are classified from; null if the diagrams 
+  // are parsed
+  private String graphFile = null;
+
+  public int getDiagramsNum() {
+    return diagramsNum;
+  }
+
+  public void setDiagramsNum(int diagramsNum) {
+    this.diagramsNum = diagramsNum;
+  }
+
+  public String getInputSpec() {
+    return inputSpec;
+  }
+
+  public void setInputSpec(String inputSpec) {
+    this.inputSpec = inputSpec;
+  }
+
+  public int getServerPort() {
+    return serverPort;
+  }
+
+  public void setServerPort(int serverPort) {
+    this.serverPort = serverPort;
+  }
+
+  public String getWatchFolder() {
+    return watchFolder;
+  }
+
+  public void setWatchFolder(String watchFolder) {
+    this.watchFolder = watchFolder;
+  }
+
+  public String getClassTableFile() {
+    return classTableFile;
+  }
+
+  public void setClassTableFile(String classTableFile) {
+    this.classTableFile = classTableFile;
+  }
+
+  public int getFlushInterval() {
+    return flushInterval;
+  }
+
+  public void setFlushInterval(int flushInterval) {
+    this.flushInterval = flushInterval;
+  }
+
+  public int getThreadsNum() {
+    return threadsNum;
+  }
+
+  public void setThreadsNum(int threadsNum) {
+    this.threadsNum = threadsNum;
+  }
+
+  public int getParseWorkersNum() {
+    return parseWorkersNum;
+  }
+
+  public void setParseWorkersNum(int parseWorkersNum) {
+    this.parseWorkersNum = parseWorkersNum;
+  }
+
+  public int getPrefetchNum() {
+    return prefetchNum;
+  }
+
+  public void setPrefetchNum(int prefetchNum) {
+    this.prefetchNum = prefetchNum;
+  }
+
+  public boolean isPipeline() {
+    return pipeline;
+  }
+
+  public void setPipeline(boolean pipeline) {
+    this.pipeline = pipeline;
+  }
+
+  /**
+   * Returns the number of threads of the given pipeline stage.
+   * @param stageName - the pipeline stage name
+   * @return the number of threads of the pipeline stage; 1 if not specified
+   */
+  public int getStageThreadsNum(String stageName) {
+    Integer stageThreadsNum = stageThreadsNumMap.get(stageName);
+    return stageThreadsNum == null ? 1 : stageThreadsNum.intValue();
+  }
+
+  public void setStageThreadsNum(String stageName, int stageThreadsNum) {
+    stageThreadsNumMap.put(stageName, stageThreadsNum);
+  }
+
+  public int getStageQueueSize() {
+    return stageQueueSize;
+  }
+
+  public void setStageQueueSize(int stageQueueSize) {
+    this.stageQueueSize = stageQueueSize;
+  }
+
+  public long getTimeout() {
+    return timeout;
+  }
+
+  public void setTimeout(long timeout) {
+    this.timeout = timeout;
+  }
+
+  public int getShardIndex() {
+    return shardIndex;
+  }
+
+  public void setShardIndex(int shardIndex) {
+    this.shardIndex = shardIndex;
+  }
+
+  public int getShardsNum() {
+    return shardsNum;
+  }
+
+  public void setShardsNum(int shardsNum) {
+    this.shardsNum = shardsNum;
+  }
+
+  public String getPartialCatalogFile() {
+    return partialCatalogFile;
+  }
+
+  public void setPartialCatalogFile(String partialCatalogFile) {
+    this.partialCatalogFile = partialCatalogFile;
+  }
+
+  public ArrayList<String> getMergeFileList() {
+    return mergeFileList;
+  }
+
+  public void setMergeFileList(ArrayList<String> mergeFileList) {
+    this.mergeFileList = mergeFileList;
+  }
+
+  public String getWorkDir() {
+    return workDir;
+  }
+
+  public void setWorkDir(String workDir) {
+    this.workDir = workDir;
+  }
+
+  public String getWorkerId() {
+    return workerId;
+  }
+
+  public void setWorkerId(String workerId) {
+    this.workerId = workerId;
+  }
+
+  public int getChunkSize() {
+    return chunkSize;
+  }
+
+  public void setChunkSize(int chunkSize) {
+    this.chunkSize = chunkSize;
+  }
+
+  public int getLeaseTime() {
+    return leaseTime;
+  }
+
+  public void setLeaseTime(int leaseTime) {
+    this.leaseTime = leaseTime;
+  }
+
+  public int getSampleSize() {
+    return sampleSize;
+  }
+
+  public void setSampleSize(int sampleSize) {
+    this.sampleSize = sampleSize;
+  }
+
+  public int getStrataNum() {
+    return strataNum;
+  }
+
+  public void setStrataNum(int strataNum) {
+    this.strataNum = strataNum;
+  }
+
+  public double getPrecision() {
+    return precision;
+  }
+
+  public void setPrecision(double precision) {
+    this.precision = precision;
+  }
+
+  public double getConfidence() {
+    return confidence;
+  }
+
+  public void setConfidence(double confidence) {
+    this.confidence = confidence;
+  }
+
+  public long getSeed() {
+    return seed;
+  }
+
+  public void setSeed(long seed) {
+    this.seed = seed;
+  }
+
+  public String getParser() {
+    return parser;
+  }
+
+  public void setParser(String parser) {
+    this.parser = parser;
+  }
+
+  /**
+   * Returns true if the XMI files are read by XmiGraphReader rather than
+   * the ArgoUML model.
+   */
+  public boolean isStaxParser() {
+    return parser.equals("stax");
+  }
+
+  /**
+   * Returns true if the XMI files are memory-mapped and read by 
+   * XmiByteScanner.
+   */
+  public boolean isScanParser() {
+    return parser.equals("scan");
+  }
+
+  public String getModel() {
+    return model;
+  }
+
+  public void setModel(String model) {
+    this.model = model;
+  }
+
+  public boolean isPrescan() {
+    return prescan;
+  }
+
+  public void setPrescan(boolean prescan) {
+    this.prescan = prescan;
+  }
+
+  public boolean isDedup() {
+    return dedup;
+  }
+
+  public void setDedup(boolean dedup) {
+    this.dedup = dedup;
+  }
+
+  public String getBundleFile() {
+    return bundleFile;
+  }
+
+  public void setBundleFile(String bundleFile) {
+    this.bundleFile = bundleFile;
+  }
+
+  public String getConvertFile() {
+    return convertFile;
+  }
+
+  public void setConvertFile(String convertFile) {
+    this.convertFile = convertFile;
+  }
+
+  public String getGraphFile() {
+    return graphFile;
+  }
+
+  public void setGraphFile(String graphFile) {
+    this.graphFile = graphFile;
+  }
+
+  public String getJournalFile() {
+    return journalFile;
+  }
+
+  public void setJournalFile(String journalFile) {
+    this.journalFile = journalFile;
+  }
+
+  public boolean isResume() {
+    return resume;
+  }
+
+  public void setResume(boolean resume) {
+    this.resume = resume;
+  }
+
+  /**
+   * Parses the command line arguments. The first argument is the number of 
+   * class diagrams to classify, the rest are options. The number of class 
+   * diagrams may be omitted if the input source is given. The arguments 
+   * after --merge are the partial catalogs to merge.
+   * @param args - the command line arguments
+   * @return the options
+   * @throws IllegalArgumentException if an argument is invalid
+   */
+  public static DiagramClassifierOptions parse(String[] args) {
+    DiagramClassifierOptions options = new DiagramClassifierOptions();
+    // The options given, checked for the combinations that have no effect
+    HashSet<String> optionSet = new HashSet<String>();
+    int i = 0;
+    if (args.length > 0 && !args[0].startsWith("--")) {
+      options.setDiagramsNum(Integer.parseInt(args[0]));
+      i++;
+    }
+    for (; i < args.length; i++) {
+      String option = args[i];
+      optionSet.add(option);
+      if (option.equals("--pipeline")) {
+        options.setPipeline(true);
+        continue;
+      }
+      if (option.equals("--merge")) {
+        options.setMergeFileList(new ArrayList<String>(Arrays.asList(args).subList(i + 1, args.length)));
+        break;
+      }
+      if (option.equals("--resume")) {
+        options.setResume(true);
+        continue;
+      }
+      if (option.equals("--prescan")) {
+        options.setPrescan(true);
+        continue;
+      }
+      if (option.equals("--dedup")) {
+        options.setDedup(true);
+        continue;
+      }
+      if (i + 1 >= args.length)
+        throw new IllegalArgumentException("Unknown option: " + option);
+      String value = args[++i];
+      if (option.equals("--input"))
+        options.setInputSpec(value);
+      else if (option.equals("--watch"))
+        options.setWatchFolder(value);
+      else if (option.equals("--timeout"))
+        options.setTimeout(Long.parseLong(value));
+      else if (option.equals("--shard")) {
+        String[] pair = value.split("/");
+        if (pair.length != 2)
+          throw new IllegalArgumentException("Invalid shard: " + value);
+        options.setShardIndex(Integer.parseInt(pair[0]));
+        options.setShardsNum(Integer.parseInt(pair[1]));
+        if (options.getShardIndex() < 0 || options.getShardIndex() >= options.getShardsNum())
+          throw new IllegalArgumentException("Invalid shard: " + value);
+      } else if (option.equals("--partial-catalog"))
+        options.setPartialCatalogFile(value);
+      else if (option.equals("--work-dir"))
+        options.setWorkDir(value);
+      else if (option.equals("--worker-id"))
+        options.setWorkerId(value);
+      else if (option.equals("--chunk-size")) {
+        options.setChunkSize(Integer.parseInt(value));
+        if (options.getChunkSize() <= 0)
+          throw new IllegalArgumentException("Invalid chunk size: " + value);
+      } else if (option.equals("--lease-time")) {
+        options.setLeaseTime(Integer.parseInt(value));
+        if (options.getLeaseTime() <= 0)
+          throw new IllegalArgumentException("Invalid lease time: " + value);
+      } else if (option.equals("--sample"))
+        options.setSampleSize(Integer.parseInt(value));
+      else if (option.equals("--strata"))
+        options.setStrataNum(Integer.parseInt(value));
+      else if (option.equals("--precision"))
+        options.setPrecision(Double.parseDouble(value));
+      else if (option.equals("--confidence")) {
+        options.setConfidence(Double.parseDouble(value));
+        if (options.getConfidence() <= 0 || options.getConfidence() >= 1)
+          throw new IllegalArgumentException("Invalid confidence: " + value);
+      } else if (option.equals("--seed"))
+        options.setSeed(Long.parseLong(value));
+      else if (option.equals("--parser")) {
+        if (!value.equals("mdr") && !value.equals("stax") && !value.equals("scan"))
+          throw new IllegalArgumentException("Unknown parser: " + value);
+        options.setParser(value);
+      } else if (option.equals("--model")) {
+        if (!value.equals("mdr") && !value.equals("euml"))
+          throw new IllegalArgumentException("Unknown model: " + value);
+        options.setModel(value);
+      } else if (option.equals("--bundle"))
+        options.setBundleFile(value);
+      else if (option.equals("--convert"))
+        options.setConvertFile(value);
+      else if (option.equals("--graphs"))
+        options.setGraphFile(value);
+      else if (option.equals("--journal"))
+        options.setJournalFile(value);
+      else if (option.equals("--class-table"))
+        options.setClassTableFile(value);
+      else if (option.equals("--flush-interval"))
+        options.setFlushInterval(Integer.parseInt(value));
+      else if (option.equals("--server"))
+        options.setServerPort(Integer.parseInt(value));
+      else if (option.equals("--threads")) {
+        options.setThreadsNum(Integer.parseInt(value));
+        if (options.getThreadsNum() <= 0)
+          throw new IllegalArgumentException("Invalid threads: " + value);
+      } else if (option.equals("--parse-workers")) {
+        options.setParseWorkersNum(Integer.parseInt(value));
+        if (options.getParseWorkersNum() <= 0)
+          throw new IllegalArgumentException("Invalid parse workers: " + value);
+      } else if (option.equals("--prefetch")) {
+        options.setPrefetchNum(Integer.parseInt(value));
+        if (options.getPrefetchNum() <= 0)
+          throw new IllegalArgumentException("Invalid prefetch: " + value);
+      } else if (option.equals("--stage-threads")) {
+        for (String stageThreadsNum : value.split(",")) {
+          String[] pair = stageThreadsNum.split("=");
+          if (pair.length != 2)
+            throw new IllegalArgumentException("Invalid stage threads: " + stageThreadsNum);
+          options.setStageThreadsNum(pair[0], Integer.parseInt(pair[1]));
+        }
+      } else if (option.equals("--queue-size")) {
+        options.setStageQueueSize(Integer.parseInt(value));
+        if (options.getStageQueueSize() <= 0)
+          throw new IllegalArgumentException("Invalid queue size: " + value);
+      } else
+        throw new IllegalArgumentException("Unknown option: " + option);
+    }
+    if (options.getDiagramsNum() == 0 && options.getInputSpec() == null && options.getServerPort() == 0 && 
+        options.getWatchFolder() == null && options.getMergeFileList() == null && options.getWorkDir() == null && 
+        options.getGraphFile() == null)
+      throw new IllegalArgumentException("The number of diagrams or the input is missing");
+    if (options.isResume() && options.getJournalFile() == null)
+      throw new IllegalArgumentException("The journal to resume is missing");
+    if (!options.getModel().equals("mdr") && !options.getParser().equals("mdr"))
+      throw new IllegalArgumentException("The model " + options.getModel() + " needs the mdr parser");
+    checkCombinations(options, optionSet);
+    return options;
+  }
+
+  /**
+   * Checks that none of the given options is ignored by the mode given by 
+   * the others.
+   * @param options - the parsed options
+   *        optionSet - the options given
+   * @throws IllegalArgumentException if an option would have no effect
+   */
+  private static void checkCombinations(DiagramClassifierOptions options, HashSet<String> optionSet) {
+    if (options.isPipeline()) {
+      for (String option : new String[] {"--threads", "--parse-workers", "--prefetch"})
+        if (optionSet.contains(option))
+          throw new IllegalArgumentException(option + " has no effect with --pipeline");
+    }
+    if (options.getParseWorkersNum() > 0) {
+      if (!options.getParser().equals("mdr"))
+        throw new IllegalArgumentException("--parser " + options.getParser() + " has no effect with --parse-workers");
+      if (optionSet.contains("--prefetch"))
+        throw new IllegalArgumentException("--prefetch has no effect with --parse-workers");
+    }
+    for (String option : new String[] {"--sample", "--bundle", "--convert", "--work-dir"})
+      if (optionSet.contains(option)) {
+        if (optionSet.contains("--shard"))
+          throw new IllegalArgumentException("--shard has no effect with " + option);
+        if (optionSet.contains("--partial-catalog"))
+          throw new IllegalArgumentException("--partial-catalog has no effect with " + option);
+      }
+  }
+
+}
\ No newline at end of file
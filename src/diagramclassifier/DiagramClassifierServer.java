@@ -0,0 +1,174 @@
+package diagramclassifier;
+
+import java.io.*;
+import java.net.*;
+import java.util.*;
+import org.argouml.model.*;
+import fi.tkk.ics.jbliss.Graph;
+
+/**
+ * This class classifies class diagrams on request. The server keeps the 
+ * ArgoUML model implementation, the jbliss library and the list of classes 
+ * found so far in memory, so a request does not pay the start-up costs. 
+ * The server listens on the loopback interface and speaks a line-based 
+ * protocol. Each request is one line, each response is one line unless 
+ * noted otherwise.
+ * <ul>
+ * <li>CLASSIFY PATH - classifies the diagram file; the response is 
+ *     "OK CLASS MEMBERS COVERED" where CLASS is the class number, MEMBERS 
+ *     is the number of members of the class and COVERED is true if the 
+ *     diagram is covered by the basic templates</li>
+ * <li>TABLE - prints the class table followed by a line "END"</li>
+ * <li>QUIT - closes the connection</li>
+ * </ul>
+ * A request that fails gets the response "ERROR MESSAGE".
+ * @author Alexey Tazin 
+ */
+public class DiagramClassifierServer {
+
+  // The ArgoUML model implemetation
+  private ModelImplementation modelImpl;
+
+  private DiagramClassCatalog diagramClassCatalog = new DiagramClassCatalog();
+
+  // The time budget of a diagram in milliseconds; 0 if there is no limit
+  private long timeout;
+
+  private ServerSocket serverSocket;
+
+  /**
+   * Initializes the MDR model implementation and the jbliss library and 
+   * starts listening on the given port of the loopback interface.
+   * @param port - the port
+   */
+  public DiagramClassifierServer(int port) throws IOException {
+    this(port, "mdr");
+  }
+
+  /**
+   * Initializes the model implementation of the given backend and the 
+   * jbliss library and starts listening on the given port of the loopback 
+   * interface.
+   * @param port - the port
+   *        modelBackend - the ArgoUML model backend: mdr or euml
+   */
+  public DiagramClassifierServer(int port, String modelBackend) throws IOException {
+    this(port, modelBackend, 0);
+  }
+
+  /**
+   * Initializes the model implementation of the given backend and the 
+   * jbliss library and starts listening on the given port of the loopback 
+   * interface. A diagram that runs out of the given time budget gets the 
+   * response "ERROR" with the DiagramTimeoutException.
+   * @param port - the port
+   *        modelBackend - the ArgoUML model backend: mdr or euml
+   *        timeout - the time budget of a diagram in milliseconds; 0 if 
+   *        there is no limit
+   */
+  public DiagramClassifierServer(int port, String modelBackend, long timeout) throws IOException {
+    this.timeout = timeout;
+    modelImpl = InitializeModel.initializeModel(modelBackend);
+    warmUp();
+    serverSocket = new ServerSocket(port, 50, InetAddress.getLoopbackAddress());
+  }
+
+  public DiagramClassCatalog getDiagramClassCatalog() {
+    return diagramClassCatalog;
+  }
+
+  /**
+   * Loads the jbliss native library before the first request.
+   */
+  private static void warmUp() {
+    Graph<String> graph = new Graph<String>();
+    graph.add_vertex("v1", 0);
+    graph.add_vertex("v2", 1);
+    graph.add_edge("v1", "v2");
+    graph.find_automorphisms(null, null);
+    graph.canonical_labeling();
+  }
+
+  /**
+   * Accepts connections until the server socket is closed. Each connection 
+   * is served by its own thread.
+   */
+  public void run() throws IOException {
+    while (!serverSocket.isClosed()) {
+      final Socket socket;
+      try {
+        socket = serverSocket.accept();
+      } catch (SocketException e) {
+        break;
+      }
+      Thread thread = new Thread(new Runnable() {
+        public void run() {
+          serve(socket);
+        }
+      }, "classifier-connection");
+      thread.setDaemon(true);
+      thread.start();
+    }
+  }
+
+  public void close() throws IOException {
+    serverSocket.close();
+  }
+
+  private void serve(Socket socket) {
+    try {
+      socket.setTcpNoDelay(true);
+      BufferedReader reader = new BufferedReader(new InputStreamReader(socket.getInputStream(), "UTF-8"));
+      PrintStream writer = new PrintStream(new BufferedOutputStream(socket.getOutputStream()), false, "UTF-8");
+      String request;
+      while ((request = reader.readLine()) != null) {
+        request = request.trim();
+        if (request.equals("QUIT"))
+          break;
+        try {
+          if (request.startsWith("CLASSIFY "))
+            writer.println(classify(request.substring(9).trim()));
+          else if (request.equals("TABLE")) {
+            synchronized (this) {
+              diagramClassCatalog.print(writer);
+            }
+            writer.println("END");
+          } else
+            writer.println("ERROR Unknown request: " + request);
+        } catch (Exception e) {
+          writer.println("ERROR " + e.toString().replace('\n', ' '));
+        }
+        writer.flush();
+      }
+    } catch (IOException e) {
+      e.printStackTrace();
+    } finally {
+      try {
+        socket.close();
+      } catch (IOException e) {
+      }
+    }
+  }
+
+  /**
+   * Classifies the given diagram file and adds it to its class. The 
+   * requests are classified one at a time since the ArgoUML model 
+   * subsystem is shared by the whole process.
+   * @param diagramFileName - the diagram file name
+   * @return the response line
+   */
+  public synchronized String classify(String diagramFileName) throws Exception {
+    DiagramDeadline deadline = timeout > 0 ? new DiagramDeadline(timeout) : null;
+    DiagramGraph diagramGraph = DiagramClassifier.readDiagramGraph(modelImpl, new File(diagramFileName), deadline);
+    DiagramClassCalculator diagramClassCalculator = new DiagramClassCalculator();
+    diagramClassCalculator.setDeadline(deadline);
+    Graph<Integer> graphClass = diagramClassCalculator.calculateDiagramClass(diagramGraph);
+    if (diagramClassCalculator.getError() != null)
+      throw diagramClassCalculator.getError();
+    int graphClassIndex = diagramClassCatalog.addMember(graphClass, diagramClassCalculator.getGraphClassCertificate(), 
+                                                        diagramFileName);
+    return "OK " + graphClassIndex + " " + diagramClassCatalog.getGraphClassMemberFreqList().get(graphClassIndex) + 
+           " " + (graphClass != null);
+  }
+
+}
\ No newline at end of file
@@ -0,0 +1,294 @@
+package diagramclassifier;
+
+import java.io.*;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.*;
+import org.argouml.model.*;
+import org.xml.sax.InputSource;
+import fi.tkk.ics.jbliss.Graph;
+
+/**
+ * This class allows to embed the classifier in another application. The 
+ * diagrams are classified asynchronously and the results are returned as 
+ * futures instead of being printed. The XMI files are parsed by a single 
+ * thread since the ArgoUML model subsystem is shared by the whole process, 
+ * so there should be one service per process. The classes are calculated 
+ * by a pool of threads and numbered in the order they are found.
+ * @author Alexey Tazin 
+ */
+public class DiagramClassifierService {
+
+  // The ArgoUML model implemetation
+  private ModelImplementation modelImpl;
+
+  // The thread parsing XMI files and generating E-graphs
+  private ExecutorService parseExecutor;
+
+  // The threads calculating diagram classes
+  private ExecutorService classifyExecutor;
+
+  private DiagramClassCatalog diagramClassCatalog = new DiagramClassCatalog();
+
+  // The time budget of a diagram in milliseconds; 0 if there is no limit
+  private long timeout = 0;
+
+  /**
+   * Initializes the MDR model implementation and starts the threads.
+   * @param threadsNum - the number of threads calculating diagram classes
+   */
+  public DiagramClassifierService(int threadsNum) {
+    this(threadsNum, "mdr");
+  }
+
+  /**
+   * Initializes the ArgoUML model implementation of the given backend and 
+   * starts the threads.
+   * @param threadsNum - the number of threads calculating diagram classes
+   *        modelBackend - the ArgoUML model backend: mdr or euml
+   */
+  public DiagramClassifierService(int threadsNum, String modelBackend) {
+    this(threadsNum, modelBackend, 0);
+  }
+
+  /**
+   * Initializes the ArgoUML model implementation of the given backend and 
+   * starts the threads. A diagram that runs out of the given time budget 
+   * fails with DiagramTimeoutException.
+   * @param threadsNum - the number of threads calculating diagram classes
+   *        modelBackend - the ArgoUML model backend: mdr or euml
+   *        timeout - the time budget of a diagram in milliseconds; 0 if 
+   *        there is no limit
+   */
+  public DiagramClassifierService(int threadsNum, String modelBackend, long timeout) {
+    this.timeout = timeout;
+    modelImpl = InitializeModel.initializeModel(modelBackend);
+    parseExecutor = Executors.newSingleThreadExecutor();
+    classifyExecutor = new ForkJoinPool(Math.max(threadsNum, 1));
+    DiagramClassCalculator.ensureLabelThreadsNum(Math.max(threadsNum, 1));
+  }
+
+  /**
+   * Returns the classes found so far. The catalog must not be modified 
+   * while diagrams are being classified.
+   * @return the classes found so far
+   */
+  public DiagramClassCatalog getDiagramClassCatalog() {
+    return diagramClassCatalog;
+  }
+
+  /**
+   * Classifies the given diagram file. The file may be any file described 
+   * in XmiFiles.
+   * @param path - the diagram file
+   * @return the future result
+   */
+  public CompletableFuture<DiagramClassificationResult> classify(final Path path) {
+    return classify(path.toString(), new Callable<InputStream>() {
+      public InputStream call() throws IOException {
+        return XmiFiles.openXmiStream(path.toString());
+      }
+    });
+  }
+
+  /**
+   * Classifies the diagram read from the given stream. The stream is read 
+   * and closed by the parsing thread.
+   * @param diagramName - the class diagram name
+   *        inputStream - the stream of plain or compressed XMI
+   * @return the future result
+   */
+  public CompletableFuture<DiagramClassificationResult> classify(String diagramName, final InputStream inputStream) {
+    return classify(diagramName, new Callable<InputStream>() {
+      public InputStream call() throws IOException {
+        return XmiFiles.openXmiStream(inputStream);
+      }
+    });
+  }
+
+  /**
+   * Classifies the given class diagram E-graph.
+   * @param diagramName - the class diagram name
+   *        diagramGraph - the class diagram E-graph
+   * @return the future result
+   */
+  public CompletableFuture<DiagramClassificationResult> classify(final String diagramName, final DiagramGraph diagramGraph) {
+    return CompletableFuture.supplyAsync(new Supplier<DiagramClassificationResult>() {
+      public DiagramClassificationResult get() {
+        return calculateDiagramClass(diagramName, diagramGraph, createDiagramDeadline(), 0, 0);
+      }
+    }, classifyExecutor);
+  }
+
+  private CompletableFuture<DiagramClassificationResult> classify(final String diagramName, 
+                                                                  final Callable<InputStream> inputStreamOpener) {
+    final long[] nanos = new long[2];
+    final DiagramDeadline deadline = createDiagramDeadline();
+    return CompletableFuture.supplyAsync(new Supplier<DiagramGraph>() {
+      public DiagramGraph get() {
+        try {
+          InputStream inputStream = inputStreamOpener.call();
+          try {
+            if (deadline != null)
+              deadline.start();
+            long startTime = System.nanoTime();
+            Object model = DiagramGraphGenerator.parseModel(new InputSource(inputStream));
+            try {
+              nanos[0] = System.nanoTime() - startTime;
+              if (deadline != null)
+                deadline.check();
+              startTime = System.nanoTime();
+              DiagramGraph diagramGraph = new DiagramGraph();
+              DiagramGraphGenerator.generateDiagramGraph(modelImpl, model, diagramGraph);
+              nanos[1] = System.nanoTime() - startTime;
+              if (deadline != null)
+                deadline.check();
+              return diagramGraph;
+            } finally {
+              DiagramGraphGenerator.deleteModel(model);
+            }
+          } finally {
+            if (deadline != null)
+              deadline.stop();
+            inputStream.close();
+          }
+        } catch (Exception e) {
+          throw new CompletionException(e);
+        }
+      }
+    }, parseExecutor).thenApplyAsync(new Function<DiagramGraph, DiagramClassificationResult>() {
+      public DiagramClassificationResult apply(DiagramGraph diagramGraph) {
+        return calculateDiagramClass(diagramName, diagramGraph, deadline, nanos[0], nanos[1]);
+      }
+    }, classifyExecutor);
+  }
+
+  /**
+   * Calculates the class of the given class diagram and adds the diagram 
+   * to its class. The steps are the same as in 
+   * DiagramClassCalculator.calculateDiagramClass.
+   * @param diagramName - the class diagram name
+   *        diagramGraph - the class diagram E-graph
+   *        deadline - the time budget; null if there is no limit
+   *        parseNanos - the time of parsing the XMI file
+   *        buildNanos - the time of generating the E-graph
+   * @return the result
+   */
+  private DiagramClassificationResult calculateDiagramClass(String diagramName, DiagramGraph diagramGraph, 
+                                                            DiagramDeadline deadline, long parseNanos, long buildNanos) {
+    DiagramClassCalculator diagramClassCalculator = new DiagramClassCalculator();
+    diagramClassCalculator.setDeadline(deadline);
+    long coverNanos = 0;
+    long pushoutNanos = 0;
+    long labelNanos = 0;
+    Graph<Integer> graphClass = null;
+    boolean covered;
+    if (deadline != null)
+      deadline.start();
+    try {
+      long startTime = System.nanoTime();
+      covered = diagramClassCalculator.coverDiagram(diagramGraph);
+      coverNanos = System.nanoTime() - startTime;
+      if (covered) {
+        startTime = System.nanoTime();
+        DiagramGraph complexPatternGraph = diagramClassCalculator.calculateComplexPatternGraph(diagramGraph);
+        pushoutNanos = System.nanoTime() - startTime;
+        startTime = System.nanoTime();
+        graphClass = diagramClassCalculator.labelDiagramClass(diagramGraph, complexPatternGraph);
+        labelNanos = System.nanoTime() - startTime;
+      }
+    } catch (Exception e) {
+      throw new CompletionException(e);
+    } finally {
+      if (deadline != null)
+        deadline.stop();
+    }
+    int graphClassIndex;
+    synchronized (diagramClassCatalog) {
+      try {
+        graphClassIndex = diagramClassCatalog.addMember(graphClass, diagramClassCalculator.getGraphClassCertificate(), 
+                                                        diagramName);
+      } catch (IOException e) {
+        throw new CompletionException(e);
+      }
+    }
+    return new DiagramClassificationResult(diagramName, graphClass, covered, graphClassIndex, 
+                                           parseNanos, buildNanos, coverNanos, pushoutNanos, labelNanos);
+  }
+
+  private DiagramDeadline createDiagramDeadline() {
+    if (timeout <= 0)
+      return null;
+    return new DiagramDeadline(timeout);
+  }
+
+  /**
+   * Classifies the given diagram files, keeping at most the given number of 
+   * diagrams in flight. Taking the next file blocks while the limit is 
+   * reached, which applies back-pressure to the producer of the files. The 
+   * results are passed to the consumer in the order of the files.
+   * @param pathIterator - the diagram files
+   *        maxInFlight - the maximum number of diagrams being classified
+   *        resultConsumer - the consumer of the results
+   * @return the future completed when all the diagrams are classified and 
+   *         consumed; it fails with the first failure
+   */
+  public CompletableFuture<Void> classifyAll(final Iterator<Path> pathIterator, final int maxInFlight, 
+                                             final Consumer<DiagramClassificationResult> resultConsumer) {
+    final CompletableFuture<Void> batchFuture = new CompletableFuture<Void>();
+    Thread thread = new Thread(new Runnable() {
+      public void run() {
+        Semaphore inFlight = new Semaphore(Math.max(maxInFlight, 1));
+        CompletableFuture<Void> previousFuture = CompletableFuture.completedFuture(null);
+        try {
+          while (pathIterator.hasNext() && !batchFuture.isDone()) {
+            inFlight.acquire();
+            // A failure completes the batch while the permit is awaited
+            if (batchFuture.isDone()) {
+              inFlight.release();
+              break;
+            }
+            final Semaphore permits = inFlight;
+            final CompletableFuture<DiagramClassificationResult> resultFuture = classify(pathIterator.next());
+            // The permit is released when the diagram is classified or fails, 
+            // so a failed diagram does not hold it
+            resultFuture.whenComplete(new BiConsumer<DiagramClassificationResult, Throwable>() {
+              public void accept(DiagramClassificationResult result, Throwable error) {
+                permits.release();
+              }
+            });
+            previousFuture = previousFuture.thenCombine(resultFuture, new BiFunction<Void, DiagramClassificationResult, Void>() {
+              public Void apply(Void previous, DiagramClassificationResult result) {
+                resultConsumer.accept(result);
+                return null;
+              }
+            });
+            previousFuture.whenComplete(new BiConsumer<Void, Throwable>() {
+              public void accept(Void previous, Throwable error) {
+                if (error != null)
+                  batchFuture.completeExceptionally(error);
+              }
+            });
+          }
+          previousFuture.get();
+          batchFuture.complete(null);
+        } catch (Exception e) {
+          batchFuture.completeExceptionally(e);
+        }
+      }
+    }, "classifier-batch");
+    thread.setDaemon(true);
+    thread.start();
+    return batchFuture;
+  }
+
+  /**
+   * Stops the threads. The diagrams being classified are finished first.
+   */
+  public void shutdown() {
+    parseExecutor.shutdown();
+    classifyExecutor.shutdown();
+  }
+
+}
\ No newline at end of file
@@ -0,0 +1,359 @@
+package diagramclassifier;
+
+import java.io.*;
+import java.nio.*;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import org.argouml.model.*;
+
+/**
+ * This class checks that the readers of class diagrams and the formats of
+ * the classifier agree with each other on a set of class diagrams. The
+ * check runs the following steps and exits with status 1 if any of them
+ * fails.
+ * <ul>
+ * <li>Each diagram is read by XmiGraphReader (stax), XmiByteScanner (scan)
+ *     and, if the ArgoUML model backend can be initialized, by
+ *     DiagramGraphGenerator (mdr). The E-graphs must be the same, including
+ *     the order of the nodes, the edges and the attribute edges, so the
+ *     order of the data types among the attributes and the ends of the
+ *     self-associations are compared as well. The number of diagrams with
+ *     interleaved data types and with self-associations is printed, so a
+ *     corpus that does not exercise them is noticed.</li>
+ * <li>The E-graphs are written by DiagramGraphWriter along with a failure
+ *     and read back by DiagramGraphReader, and must be the same.</li>
+ * <li>A journal written by DiagramClassJournal with a torn last record is
+ *     replayed; the torn record must be cut off and the rest restored.</li>
+ * </ul>
+ * java diagramclassifier.DiagramConsistencyCheck [INPUT [BACKEND]]
+ * <p>
+ * INPUT is an input source as accepted by the --input option,
+ * glob:diagrams/*.xmi by default. The backend is mdr by default.
+ * @author Alexey Tazin
+ */
+public class DiagramConsistencyCheck {
+
+  // The number of failed checks
+  private static int failuresNum = 0;
+
+  public static void main(String[] args) {
+    try {
+      String inputSpec = args.length > 0 ? args[0] : "glob:diagrams/*.xmi";
+      String modelBackend = args.length > 1 ? args[1] : "mdr";
+      ModelImplementation modelImpl = InitializeModel.initializeModel(modelBackend);
+      if (modelImpl == null)
+        System.out.println("SKIP " + modelBackend + ": the model backend cannot be initialized");
+
+      ArrayList<String> diagramNameList = new ArrayList<String>();
+      ArrayList<DiagramGraph> diagramGraphList = new ArrayList<DiagramGraph>();
+      checkReaders(inputSpec, modelImpl, diagramNameList, diagramGraphList);
+      checkGraphFile(diagramNameList, diagramGraphList);
+      checkJournal();
+    } catch (Exception e) {
+      e.printStackTrace();
+      failuresNum++;
+    }
+    System.out.println(failuresNum == 0 ? "OK" : "FAILED " + failuresNum);
+    System.exit(failuresNum == 0 ? 0 : 1);
+  }
+
+  private static void fail(String message) {
+    System.out.println("FAIL " + message);
+    failuresNum++;
+  }
+
+  /**
+   * Reads the diagrams of the given input source with each reader and
+   * compares the E-graphs. Each diagram is also read with its first
+   * association turned into a self-association, since the corpus may have
+   * none.
+   * @param inputSpec - the input source of the diagrams
+   *        modelImpl - the ArgoUML model implemetation; null if the
+   *        generator is not checked
+   *        diagramNameList - the list the names of the diagrams read are
+   *        added to
+   *        diagramGraphList - the list the E-graphs read by stax are added to
+   */
+  private static void checkReaders(String inputSpec, ModelImplementation modelImpl, ArrayList<String> diagramNameList,
+                                   ArrayList<DiagramGraph> diagramGraphList) throws IOException {
+    DiagramInputSource diagramInputSource = DiagramInputSource.open(inputSpec);
+    try {
+      while (diagramInputSource.hasNext()) {
+        String diagramName = diagramInputSource.next();
+        byte[] xmiBytes;
+        try {
+          xmiBytes = XmiFiles.readXmiBytes(diagramName);
+        } catch (IOException e) {
+          fail(diagramName + ": cannot read it: " + e);
+          continue;
+        }
+        checkReaders(diagramName, xmiBytes, modelImpl, diagramNameList, diagramGraphList);
+        byte[] selfAssociationXmiBytes = createSelfAssociation(xmiBytes);
+        if (selfAssociationXmiBytes != null)
+          checkReaders(diagramName + "#self-association", selfAssociationXmiBytes, modelImpl, 
+                       diagramNameList, diagramGraphList);
+      }
+    } finally {
+      diagramInputSource.close();
+    }
+    int interleavedDiagramsNum = 0;
+    int selfAssociationDiagramsNum = 0;
+    for (DiagramGraph diagramGraph : diagramGraphList) {
+      if (hasInterleavedDataTypes(diagramGraph))
+        interleavedDiagramsNum++;
+      if (hasSelfAssociation(diagramGraph))
+        selfAssociationDiagramsNum++;
+    }
+    System.out.println("Readers: " + diagramNameList.size() + " diagrams, " + interleavedDiagramsNum +
+                       " with interleaved data types, " + selfAssociationDiagramsNum + " with self-associations");
+    if (interleavedDiagramsNum == 0 || selfAssociationDiagramsNum == 0)
+      fail("the diagrams of " + inputSpec + " do not exercise the data types and the self-associations");
+  }
+
+  /**
+   * Reads the given diagram with each reader and compares the E-graphs.
+   * @param diagramName - the class diagram name
+   *        xmiBytes - the XMI contents
+   *        modelImpl - the ArgoUML model implemetation; null if the
+   *        generator is not checked
+   *        diagramNameList - the list the name is added to if stax reads 
+   *        the diagram
+   *        diagramGraphList - the list the E-graph read by stax is added to
+   */
+  private static void checkReaders(String diagramName, byte[] xmiBytes, ModelImplementation modelImpl, 
+                                   ArrayList<String> diagramNameList, ArrayList<DiagramGraph> diagramGraphList) {
+    DiagramGraph diagramGraph;
+    try {
+      diagramGraph = XmiGraphReader.readDiagramGraph(new ByteArrayInputStream(xmiBytes));
+    } catch (Exception e) {
+      fail(diagramName + ": stax cannot read it: " + e);
+      return;
+    }
+    diagramNameList.add(diagramName);
+    diagramGraphList.add(diagramGraph);
+    List<String> description = describe(diagramGraph);
+
+    try {
+      compare(diagramName, "stax", description, "scan", 
+              describe(XmiByteScanner.readDiagramGraph(ByteBuffer.wrap(xmiBytes))));
+    } catch (Exception e) {
+      fail(diagramName + ": scan cannot read it: " + e);
+    }
+    if (modelImpl != null) {
+      try {
+        compare(diagramName, "stax", description, "mdr",
+                describe(DiagramClassifier.readDiagramGraph(modelImpl, new ByteArrayInputStream(xmiBytes))));
+      } catch (Exception e) {
+        fail(diagramName + ": mdr cannot read it: " + e);
+      }
+    }
+  }
+
+  /**
+   * Returns the given XMI contents with the participant of the second end 
+   * of an association replaced by the participant of the first end. The 
+   * association is the first one with a navigable first end, since the 
+   * readers take both ends of a self-association as the first end and 
+   * leave out an association without navigable ends.
+   * @param xmiBytes - the XMI contents as written by ArgoUML
+   * @return the XMI contents with a self-association; null if there is no 
+   *         such association
+   */
+  private static byte[] createSelfAssociation(byte[] xmiBytes) {
+    String xmi = new String(xmiBytes, StandardCharsets.UTF_8);
+    int connectionIndex = -1;
+    while ((connectionIndex = xmi.indexOf("<UML:Association.connection>", connectionIndex + 1)) >= 0) {
+      int endIndex = xmi.indexOf("<UML:AssociationEnd ", connectionIndex);
+      if (endIndex < 0)
+        return null;
+      String endTag = xmi.substring(endIndex, xmi.indexOf('>', endIndex));
+      if (!endTag.replace(" ", "").contains("isNavigable='true'"))
+        continue;
+      int[] idrefStarts = new int[2];
+      int[] idrefEnds = new int[2];
+      int index = connectionIndex;
+      for (int i = 0; i < 2; i++) {
+        index = xmi.indexOf("<UML:AssociationEnd.participant>", index);
+        if (index < 0)
+          return null;
+        index = xmi.indexOf("xmi.idref", index);
+        if (index < 0)
+          return null;
+        idrefStarts[i] = xmi.indexOf('\'', index) + 1;
+        idrefEnds[i] = xmi.indexOf('\'', idrefStarts[i]);
+        if (idrefStarts[i] == 0 || idrefEnds[i] < 0)
+          return null;
+        index = idrefEnds[i];
+      }
+      return (xmi.substring(0, idrefStarts[1]) + xmi.substring(idrefStarts[0], idrefEnds[0]) + 
+              xmi.substring(idrefEnds[1])).getBytes(StandardCharsets.UTF_8);
+    }
+    return null;
+  }
+
+  /**
+   * Writes the given E-graphs and a failure to a graph file and reads them
+   * back.
+   * @param diagramNameList - the class diagram names
+   *        diagramGraphList - the class diagram E-graphs
+   */
+  private static void checkGraphFile(ArrayList<String> diagramNameList, ArrayList<DiagramGraph> diagramGraphList)
+    throws IOException {
+    ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+    DiagramGraphWriter diagramGraphWriter = new DiagramGraphWriter(outputStream);
+    for (int i = 0; i < diagramGraphList.size(); i++) {
+      diagramGraphWriter.write(diagramNameList.get(i), diagramGraphList.get(i));
+      if (i == 0)
+        diagramGraphWriter.writeFailure("failed.xmi", "TIMEOUT");
+    }
+    diagramGraphWriter.finish();
+
+    DiagramGraphReader diagramGraphReader = new DiagramGraphReader(new ByteArrayInputStream(outputStream.toByteArray()));
+    try {
+      for (int i = 0; i < diagramGraphList.size(); i++) {
+        if (!diagramGraphReader.next()) {
+          fail("graph file: ends after " + i + " diagrams");
+          return;
+        }
+        String diagramName = diagramNameList.get(i);
+        if (!diagramName.equals(diagramGraphReader.getDiagramName()))
+          fail("graph file: " + diagramGraphReader.getDiagramName() + " read instead of " + diagramName);
+        else if (diagramGraphReader.getDiagramGraph() == null)
+          fail("graph file: " + diagramName + " read as a failure");
+        else
+          compare(diagramName, "written", describe(diagramGraphList.get(i)),
+                  "read", describe(diagramGraphReader.getDiagramGraph()));
+        if (i == 0 && (!diagramGraphReader.next() || !"failed.xmi".equals(diagramGraphReader.getDiagramName()) ||
+                       !"TIMEOUT".equals(diagramGraphReader.getFailure())))
+          fail("graph file: the failure is not read back");
+      }
+      if (diagramGraphReader.next())
+        fail("graph file: " + diagramGraphReader.getDiagramName() + " read after the last diagram");
+    } finally {
+      diagramGraphReader.close();
+    }
+    System.out.println("Graph file: " + diagramGraphList.size() + " diagrams, " + outputStream.size() + " bytes");
+  }
+
+  /**
+   * Writes a journal, tears its last record and replays it.
+   */
+  private static void checkJournal() throws IOException {
+    File journalFile = File.createTempFile("journal", ".tsv");
+    try {
+      DiagramClassCatalog diagramClassCatalog = new DiagramClassCatalog();
+      DiagramClassJournal diagramClassJournal = new DiagramClassJournal(journalFile, false, diagramClassCatalog);
+      diagramClassCatalog.addMember(null, "certificate1", "a.xmi");
+      diagramClassCatalog.addMember(null, null, "b\tc.xmi");
+      diagramClassCatalog.addMember(null, "certificate1", "d.xmi");
+      diagramClassCatalog.addFailure("e.xmi", "TIMEOUT");
+      diagramClassJournal.close();
+      long validLength = journalFile.length();
+
+      OutputStream outputStream = new FileOutputStream(journalFile, true);
+      try {
+        outputStream.write("D\t0\tf.x".getBytes(StandardCharsets.UTF_8));
+      } finally {
+        outputStream.close();
+      }
+
+      diagramClassCatalog = new DiagramClassCatalog();
+      diagramClassJournal = new DiagramClassJournal(journalFile, true, diagramClassCatalog);
+      diagramClassJournal.close();
+      if (journalFile.length() != validLength)
+        fail("journal: " + journalFile.length() + " bytes left instead of " + validLength);
+      Set<String> expectedNameSet = new HashSet<String>(Arrays.asList("a.xmi", "b\tc.xmi", "d.xmi", "e.xmi"));
+      if (!diagramClassJournal.getRecordedDiagramNameSet().equals(expectedNameSet))
+        fail("journal: " + diagramClassJournal.getRecordedDiagramNameSet() + " replayed instead of " + expectedNameSet);
+      if (!diagramClassCatalog.getGraphClassMemberFreqList().equals(Arrays.asList(2, 1)) ||
+          !diagramClassCatalog.getFailedDiagramNameList().equals(Arrays.asList("e.xmi")))
+        fail("journal: classes " + diagramClassCatalog.getGraphClassMemberFreqList() + " and failures " +
+             diagramClassCatalog.getFailedDiagramNameList() + " replayed");
+    } finally {
+      journalFile.delete();
+    }
+    System.out.println("Journal: replayed with a torn last record");
+  }
+
+  /**
+   * Compares the descriptions of the E-graph of a diagram and reports the
+   * first difference.
+   */
+  private static void compare(String diagramName, String name1, List<String> description1,
+                              String name2, List<String> description2) {
+    for (int i = 0; i < Math.max(description1.size(), description2.size()); i++) {
+      String line1 = i < description1.size() ? description1.get(i) : "(end)";
+      String line2 = i < description2.size() ? description2.get(i) : "(end)";
+      if (!line1.equals(line2)) {
+        fail(diagramName + ": " + name1 + " has " + line1 + ", " + name2 + " has " + line2);
+        return;
+      }
+    }
+  }
+
+  /**
+   * Describes the given E-graph line by line: the nodes with the indices
+   * of their outgoing edges, the edges and the attribute edges, each in
+   * the order of the E-graph.
+   * @param diagramGraph - the class diagram E-graph
+   * @return the lines of the description
+   */
+  private static List<String> describe(DiagramGraph diagramGraph) {
+    IdentityHashMap<Object, Integer> indexMap = new IdentityHashMap<Object, Integer>();
+    for (Node node : diagramGraph.getNodeList())
+      indexMap.put(node, indexMap.size());
+    for (Edge edge : diagramGraph.getEdgeList())
+      indexMap.put(edge, indexMap.size());
+    ArrayList<String> description = new ArrayList<String>();
+    for (Node node : diagramGraph.getNodeList()) {
+      StringBuilder line = new StringBuilder("node " + indexMap.get(node) + " " + node.getType() + " " + node.getName());
+      for (Edge edge : node.getOutgoingEdgeList())
+        line.append(" ").append(indexMap.get(edge));
+      description.add(line.toString());
+    }
+    for (Edge edge : diagramGraph.getEdgeList())
+      description.add("edge " + indexMap.get(edge) + " " + edge.getType() + " " + edge.getName() + " " +
+                      indexMap.get(edge.getSource()) + " " + indexMap.get(edge.getTarget()));
+    for (AttributeEdge attributeEdge : diagramGraph.getAttributeEdgeList()) {
+      DataNode dataNode = attributeEdge.getTarget();
+      description.add("attribute " + attributeEdge.getType() + " " + attributeEdge.getName() + " " +
+                      indexMap.get(attributeEdge.getSource()) + " " + dataNode.getType() + " " +
+                      dataNode.getValue() + " " + dataNode.getName());
+    }
+    return description;
+  }
+
+  /**
+   * Returns true if a data type of the given E-graph follows an attribute.
+   */
+  private static boolean hasInterleavedDataTypes(DiagramGraph diagramGraph) {
+    boolean property = false;
+    for (Node node : diagramGraph.getNodeList()) {
+      if (node.getType().equals("DataType") && property)
+        return true;
+      property = node.getType().equals("Property");
+    }
+    return false;
+  }
+
+  /**
+   * Returns true if both ends of an association of the given E-graph have
+   * the same class as their type.
+   */
+  private static boolean hasSelfAssociation(DiagramGraph diagramGraph) {
+    for (Node node : diagramGraph.getNodeList()) {
+      if (!node.getType().equals("Association"))
+        continue;
+      ArrayList<Node> typeList = new ArrayList<Node>();
+      for (Edge memberEndEdge : node.getOutgoingEdgeList())
+        if (memberEndEdge.getType().equals("memberEnd"))
+          for (Edge typeEdge : memberEndEdge.getTarget().getOutgoingEdgeList())
+            if (typeEdge.getType().equals("type"))
+              typeList.add(typeEdge.getTarget());
+      if (typeList.size() == 2 && typeList.get(0) == typeList.get(1))
+        return true;
+    }
+    return false;
+  }
+
+}
\ No newline at end of file
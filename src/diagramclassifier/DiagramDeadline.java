@@ -0,0 +1,79 @@
+package diagramclassifier;
+
+/**
+ * This class represents the time budget of classifying a class diagram. 
+ * The budget is spent only while the diagram is being processed, not while 
+ * it waits for a thread, so the steps of the classification start and stop 
+ * the deadline. The long running loops call check, which throws 
+ * DiagramTimeoutException when the budget is spent or the classification 
+ * is cancelled.
+ * @author Alexey Tazin 
+ */
+public class DiagramDeadline {
+
+  // The time budget in nanoseconds
+  private long budgetNanos;
+
+  // The time spent in the stopped steps in nanoseconds
+  private long spentNanos = 0;
+
+  // The start time of the running step; 0 if no step is running
+  private volatile long startTime = 0;
+
+  // True if the classification is cancelled
+  private volatile boolean cancelled = false;
+
+  /**
+   * Creates a deadline with the given time budget.
+   * @param budgetMillis - the time budget in milliseconds
+   */
+  public DiagramDeadline(long budgetMillis) {
+    this.budgetNanos = budgetMillis * 1000000L;
+  }
+
+  /**
+   * Starts spending the budget.
+   */
+  public void start() {
+    startTime = System.nanoTime();
+  }
+
+  /**
+   * Stops spending the budget.
+   */
+  public void stop() {
+    long time = startTime;
+    if (time != 0)
+      spentNanos += System.nanoTime() - time;
+    startTime = 0;
+  }
+
+  public void cancel() {
+    cancelled = true;
+  }
+
+  /**
+   * Returns the remaining time budget.
+   * @return the remaining time budget in milliseconds; 0 if it is spent
+   */
+  public long getRemainingMillis() {
+    long time = startTime;
+    long remainingNanos = budgetNanos - spentNanos - (time == 0 ? 0 : System.nanoTime() - time);
+    return Math.max(remainingNanos / 1000000L, 0);
+  }
+
+  public boolean isExpired() {
+    return cancelled || getRemainingMillis() == 0;
+  }
+
+  /**
+   * Checks if the classification may go on.
+   * @throws DiagramTimeoutException if the budget is spent or the 
+   *         classification is cancelled
+   */
+  public void check() {
+    if (isExpired())
+      throw new DiagramTimeoutException(cancelled ? "Cancelled" : "Time budget of " + budgetNanos / 1000000L + " ms spent");
+  }
+
+}
\ No newline at end of file
@@ -0,0 +1,240 @@
+package diagramclassifier;
+
+import java.io.*;
+import java.nio.file.*;
+import java.nio.file.attribute.*;
+import java.util.*;
+import org.argouml.model.*;
+import fi.tkk.ics.jbliss.Graph;
+import static java.nio.file.StandardWatchEventKinds.*;
+
+/**
+ * This class classifies the class diagrams dropped into a folder as they 
+ * arrive. The diagrams already in the folder are classified at start-up, 
+ * after that only created and modified diagram files are classified. The 
+ * class table is updated incrementally and written to a file periodically.
+ * @author Alexey Tazin 
+ */
+public class DiagramFolderWatcher {
+
+  // The time a file has to stay unchanged before it is classified
+  private static final long SETTLE_MILLIS = 1000;
+
+  // The ArgoUML model implemetation
+  private ModelImplementation modelImpl;
+
+  // The watched folder
+  private Path folder;
+
+  // The class table file; null if the class table is printed to the 
+  // standard output
+  private Path classTableFile;
+
+  // The interval between writing the class table
+  private long flushIntervalMillis;
+
+  // The time budget of a diagram in milliseconds; 0 if there is no limit
+  private long timeout;
+
+  private DiagramClassCatalog diagramClassCatalog = new DiagramClassCatalog();
+
+  // The classes of the classified diagram files
+  private HashMap<Path, Integer> graphClassIndexMap = new HashMap<Path, Integer>();
+
+  // The last modified times of the diagram files when they were last 
+  // classified, whether they failed or not
+  private HashMap<Path, FileTime> modifiedTimeMap = new HashMap<Path, FileTime>();
+
+  // The changed diagram files with the time of the last change
+  private HashMap<Path, Long> changedFileMap = new HashMap<Path, Long>();
+
+  private WatchService watchService;
+
+  /**
+   * Creates a watcher of the given folder.
+   * @param modelImpl - the ArgoUML model implemetation
+   *        folder - the watched folder
+   *        classTableFile - the class table file; null if the class table is 
+   *        printed to the standard output
+   *        flushIntervalMillis - the interval between writing the class table
+   */
+  public DiagramFolderWatcher(ModelImplementation modelImpl, Path folder, Path classTableFile, long flushIntervalMillis) {
+    this(modelImpl, folder, classTableFile, flushIntervalMillis, 0);
+  }
+
+  /**
+   * Creates a watcher of the given folder classifying each diagram within 
+   * the given time budget.
+   * @param modelImpl - the ArgoUML model implemetation
+   *        folder - the watched folder
+   *        classTableFile - the class table file; null if the class table is 
+   *        printed to the standard output
+   *        flushIntervalMillis - the interval between writing the class table
+   *        timeout - the time budget of a diagram in milliseconds; 0 if 
+   *        there is no limit
+   */
+  public DiagramFolderWatcher(ModelImplementation modelImpl, Path folder, Path classTableFile, long flushIntervalMillis, 
+                              long timeout) {
+    this.modelImpl = modelImpl;
+    this.folder = folder;
+    this.classTableFile = classTableFile;
+    this.flushIntervalMillis = flushIntervalMillis;
+    this.timeout = timeout;
+  }
+
+  public DiagramClassCatalog getDiagramClassCatalog() {
+    return diagramClassCatalog;
+  }
+
+  /**
+   * Classifies the diagrams in the folder and then watches the folder until 
+   * the thread is interrupted.
+   */
+  public void run() throws IOException {
+    watchService = folder.getFileSystem().newWatchService();
+    try {
+      registerFolder(folder);
+      DiagramInputSource diagramInputSource = new DirectoryInputSource(folder, null);
+      try {
+        while (diagramInputSource.hasNext())
+          classify(Paths.get(diagramInputSource.next()));
+      } finally {
+        diagramInputSource.close();
+      }
+      flush();
+
+      boolean changed = false;
+      long lastFlushTime = System.currentTimeMillis();
+      while (!Thread.currentThread().isInterrupted()) {
+        WatchKey key;
+        try {
+          key = watchService.poll(SETTLE_MILLIS / 2, java.util.concurrent.TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+          break;
+        }
+        if (key != null) {
+          Path directory = (Path) key.watchable();
+          for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == OVERFLOW) {
+              rescanFolder();
+              continue;
+            }
+            Path path = directory.resolve((Path) event.context());
+            if (Files.isDirectory(path)) {
+              if (event.kind() == ENTRY_CREATE)
+                registerFolder(path);
+            } else if (DiagramInputSource.isDiagramFile(path.getFileName().toString()))
+              changedFileMap.put(path, System.currentTimeMillis());
+          }
+          key.reset();
+        }
+        long currentTime = System.currentTimeMillis();
+        Iterator<Map.Entry<Path, Long>> iterator = changedFileMap.entrySet().iterator();
+        while (iterator.hasNext()) {
+          Map.Entry<Path, Long> entry = iterator.next();
+          if (currentTime - entry.getValue() < SETTLE_MILLIS)
+            continue;
+          iterator.remove();
+          if (Files.isRegularFile(entry.getKey())) {
+            classify(entry.getKey());
+            changed = true;
+          }
+        }
+        if (changed && currentTime - lastFlushTime >= flushIntervalMillis) {
+          flush();
+          changed = false;
+          lastFlushTime = currentTime;
+        }
+      }
+      if (changed)
+        flush();
+    } finally {
+      watchService.close();
+    }
+  }
+
+  /**
+   * Registers the given folder and its subfolders with the watch service.
+   * @param directory - the folder
+   */
+  private void registerFolder(Path directory) throws IOException {
+    Files.walkFileTree(directory, new SimpleFileVisitor<Path>() {
+      public FileVisitResult preVisitDirectory(Path dir, java.nio.file.attribute.BasicFileAttributes attrs) throws IOException {
+        dir.register(watchService, ENTRY_CREATE, ENTRY_MODIFY);
+        return FileVisitResult.CONTINUE;
+      }
+    });
+  }
+
+  /**
+   * Finds the changes the watch service lost when its events overflowed. 
+   * The subfolders are registered again, and the diagram files that are 
+   * new or modified since they were classified are taken as changed.
+   */
+  private void rescanFolder() throws IOException {
+    System.err.println("Watch events overflowed, rescanning " + folder);
+    registerFolder(folder);
+    long currentTime = System.currentTimeMillis();
+    DiagramInputSource diagramInputSource = new DirectoryInputSource(folder, null);
+    try {
+      while (diagramInputSource.hasNext()) {
+        Path path = Paths.get(diagramInputSource.next());
+        try {
+          if (!Files.getLastModifiedTime(path).equals(modifiedTimeMap.get(path)))
+            changedFileMap.put(path, currentTime);
+        } catch (IOException e) {
+          System.err.println("Cannot read " + path + ": " + e);
+        }
+      }
+    } finally {
+      diagramInputSource.close();
+    }
+  }
+
+  /**
+   * Classifies the given diagram file. A diagram file classified before is 
+   * first removed from its previous class. A diagram that cannot be read 
+   * is reported and skipped.
+   * @param path - the diagram file
+   */
+  private void classify(Path path) {
+    Integer previousGraphClassIndex = graphClassIndexMap.remove(path);
+    if (previousGraphClassIndex != null)
+      diagramClassCatalog.removeMember(previousGraphClassIndex);
+    try {
+      modifiedTimeMap.put(path, Files.getLastModifiedTime(path));
+      DiagramDeadline deadline = timeout > 0 ? new DiagramDeadline(timeout) : null;
+      DiagramGraph diagramGraph = DiagramClassifier.readDiagramGraph(modelImpl, path.toFile(), deadline);
+      DiagramClassCalculator diagramClassCalculator = new DiagramClassCalculator();
+      diagramClassCalculator.setDeadline(deadline);
+      Graph<Integer> graphClass = diagramClassCalculator.calculateDiagramClass(diagramGraph);
+      if (diagramClassCalculator.getError() != null)
+        throw diagramClassCalculator.getError();
+      graphClassIndexMap.put(path, diagramClassCatalog.addMember(graphClass, 
+        diagramClassCalculator.getGraphClassCertificate(), path.toString()));
+    } catch (Exception e) {
+      System.err.println("Cannot classify " + path + ": " + e);
+    }
+  }
+
+  /**
+   * Writes the class table. The table file is replaced atomically so that 
+   * readers never see a partial table.
+   */
+  private void flush() throws IOException {
+    if (classTableFile == null) {
+      diagramClassCatalog.print(System.out);
+      System.out.flush();
+      return;
+    }
+    Path tempFile = classTableFile.resolveSibling(classTableFile.getFileName() + ".tmp");
+    PrintStream out = new PrintStream(new BufferedOutputStream(Files.newOutputStream(tempFile)), false, "UTF-8");
+    try {
+      diagramClassCatalog.print(out);
+    } finally {
+      out.close();
+    }
+    Files.move(tempFile, classTableFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+  }
+
+}
\ No newline at end of file
@@ -0,0 +1,318 @@
+package diagramclassifier;
+
+import java.util.*;
+
+/**
+ * This class builds an E-graph representing a class diagram from the
+ * plain values of its classes, data types, attributes, generalizations
+ * and associations, whatever model they are read from. It is shared by
+ * DiagramGraphGenerator, which reads the ArgoUML model, and XmiGraphReader,
+ * which reads the XMI file directly, so both build the same E-graph.
+ * @author Alexey Tazin
+ */
+public class DiagramGraphBuilder {
+
+  // The E-graph being built
+  private DiagramGraph diagramGraph;
+
+  // The graph nodes of Class type by their names
+  private HashMap<String, Node> classNodeMap = new HashMap<String, Node>();
+
+  // The graph nodes of DataType type by their names
+  private HashMap<String, Node> dataTypeNodeMap = new HashMap<String, Node>();
+
+  public DiagramGraphBuilder(DiagramGraph diagramGraph) {
+    this.diagramGraph = diagramGraph;
+  }
+
+  public DiagramGraph getDiagramGraph() {
+    return diagramGraph;
+  }
+
+  /**
+   * Returns the graph node of Class type with the given class name. The
+   * node is added together with its isAbstract attribute if it does not
+   * exist yet.
+   * @param className - the class name
+   * @return the graph node of Class type
+   */
+  public Node addClass(String className) {
+    Node classNode = classNodeMap.get(className);
+    if (classNode == null) {
+      classNode = new Node(className, "Class");
+      classNodeMap.put(className, classNode);
+      diagramGraph.getNodeList().add(classNode);
+      DataNode dataNode = new DataNode("false", "Boolean", null);
+      diagramGraph.getDataNodeList().add(dataNode);
+      AttributeEdge attrEdge = new AttributeEdge(null, "isAbstract", classNode, dataNode);
+      diagramGraph.getAttributeEdgeList().add(attrEdge);
+      classNode.getAttributeEdgeList().add(attrEdge);
+    }
+    return classNode;
+  }
+
+  /**
+   * Returns the graph node of DataType type with the given datatype name.
+   * The node is added if it does not exist yet.
+   * @param dataTypeName - the datatype name
+   * @return the graph node of DataType type
+   */
+  public Node addDataType(String dataTypeName) {
+    Node dataTypeNode = dataTypeNodeMap.get(dataTypeName);
+    if (dataTypeNode == null) {
+      dataTypeNode = new Node(dataTypeName, "DataType");
+      dataTypeNodeMap.put(dataTypeName, dataTypeNode);
+      diagramGraph.getNodeList().add(dataTypeNode);
+    }
+    return dataTypeNode;
+  }
+
+  /**
+   * Adds a generalization between two classes.
+   * @param genName - the generalization name
+   *        childNode - the graph node of the child class
+   *        parentNode - the graph node of the parent class
+   */
+  public void addGeneralization(String genName, Node childNode, Node parentNode) {
+    ArrayList<Edge> edgeList = diagramGraph.getEdgeList();
+    Node genNode = new Node(genName, "Generalization");
+    diagramGraph.getNodeList().add(genNode);
+    Edge generalEdge = new Edge(null, "general", genNode, parentNode);
+    Edge specificEdge = new Edge(null, "specific", genNode, childNode);
+    edgeList.add(generalEdge);
+    edgeList.add(specificEdge);
+    ArrayList<Edge> outgoingEdgeList = genNode.getOutgoingEdgeList();
+    outgoingEdgeList.add(generalEdge);
+    outgoingEdgeList.add(specificEdge);
+    ArrayList<Edge> incomingEdgeList = childNode.getIncomingEdgeList();
+    incomingEdgeList.add(specificEdge);
+    incomingEdgeList = parentNode.getIncomingEdgeList();
+    incomingEdgeList.add(generalEdge);
+  }
+
+  /**
+   * Adds a binary association between two classes. The property of each
+   * end is named after the opposite association end and typed by the
+   * opposite class. A navigable end is owned by the class at the other
+   * end, a non-navigable one by the association.
+   * @param assocName - the association name
+   *        classNode1 - the graph node of the class at association end 1
+   *        assocEnd1Name - the name of association end 1
+   *        assocEnd1Navigable - the navigability of association end 1
+   *        assocEnd1Lower - the lower bound of association end 1
+   *        assocEnd1Upper - the upper bound of association end 1
+   *        classNode2 - the graph node of the class at association end 2
+   *        assocEnd2Name - the name of association end 2
+   *        assocEnd2Navigable - the navigability of association end 2
+   *        assocEnd2Lower - the lower bound of association end 2
+   *        assocEnd2Upper - the upper bound of association end 2
+   * @return true if the association is added; false if neither end is
+   *         navigable
+   */
+  public boolean addAssociation(String assocName,
+                                Node classNode1, String assocEnd1Name, boolean assocEnd1Navigable,
+                                int assocEnd1Lower, int assocEnd1Upper,
+                                Node classNode2, String assocEnd2Name, boolean assocEnd2Navigable,
+                                int assocEnd2Lower, int assocEnd2Upper) {
+    if (!assocEnd1Navigable && !assocEnd2Navigable)
+      return false;
+    ArrayList<Node> nodeList = diagramGraph.getNodeList();
+    ArrayList<Edge> edgeList = diagramGraph.getEdgeList();
+    Node assocNode = new Node(assocName, "Association");
+    nodeList.add(assocNode);
+    Node propNode1 = new Node(assocEnd2Name, "Property");
+    nodeList.add(propNode1);
+    Node propNode2 = new Node(assocEnd1Name, "Property");
+    nodeList.add(propNode2);
+    Edge memberEndEdge1 = new Edge(null, "memberEnd", assocNode, propNode1);
+    Edge memberEndEdge2 = new Edge(null, "memberEnd", assocNode, propNode2);
+    Edge typeEdge1 = new Edge(null, "type", propNode1, classNode2);
+    Edge typeEdge2 = new Edge(null, "type", propNode2, classNode1);
+    Edge assocEdge1 = new Edge(null, "association", propNode1, assocNode);
+    Edge assocEdge2 = new Edge(null, "association", propNode2, assocNode);
+    if (assocEnd1Navigable && assocEnd2Navigable) {
+      Edge ownedAttributeEdge1 = new Edge(null, "ownedAttribute", classNode1, propNode1);
+      Edge ownedAttributeEdge2 = new Edge(null, "ownedAttribute", classNode2, propNode2);
+      Edge classEdge1 = new Edge(null, "class", propNode1, classNode1);
+      Edge classEdge2 = new Edge(null, "class", propNode2, classNode2);
+      edgeList.add(memberEndEdge1);
+      edgeList.add(memberEndEdge2);
+      edgeList.add(typeEdge1);
+      edgeList.add(typeEdge2);
+      edgeList.add(ownedAttributeEdge1);
+      edgeList.add(ownedAttributeEdge2);
+      edgeList.add(assocEdge1);
+      edgeList.add(assocEdge2);
+      edgeList.add(classEdge1);
+      edgeList.add(classEdge2);
+      ArrayList<Edge> outgoingEdgeList = assocNode.getOutgoingEdgeList();
+      outgoingEdgeList.add(memberEndEdge1);
+      outgoingEdgeList.add(memberEndEdge2);
+      outgoingEdgeList = propNode1.getOutgoingEdgeList();
+      outgoingEdgeList.add(typeEdge1);
+      outgoingEdgeList.add(classEdge1);
+      outgoingEdgeList.add(assocEdge1);
+      outgoingEdgeList = propNode2.getOutgoingEdgeList();
+      outgoingEdgeList.add(typeEdge2);
+      outgoingEdgeList.add(classEdge2);
+      outgoingEdgeList.add(assocEdge2);
+      outgoingEdgeList = classNode1.getOutgoingEdgeList();
+      outgoingEdgeList.add(ownedAttributeEdge1);
+      outgoingEdgeList = classNode2.getOutgoingEdgeList();
+      outgoingEdgeList.add(ownedAttributeEdge2);
+      ArrayList<Edge> incomingEdgeList = assocNode.getIncomingEdgeList();
+      incomingEdgeList.add(assocEdge1);
+      incomingEdgeList.add(assocEdge2);
+      incomingEdgeList = propNode1.getIncomingEdgeList();
+      incomingEdgeList.add(ownedAttributeEdge1);
+      incomingEdgeList.add(memberEndEdge1);
+      incomingEdgeList = propNode2.getIncomingEdgeList();
+      incomingEdgeList.add(ownedAttributeEdge2);
+      incomingEdgeList.add(memberEndEdge2);
+      incomingEdgeList = classNode1.getIncomingEdgeList();
+      incomingEdgeList.add(typeEdge2);
+      incomingEdgeList.add(classEdge1);
+      incomingEdgeList = classNode2.getIncomingEdgeList();
+      incomingEdgeList.add(typeEdge1);
+      incomingEdgeList.add(classEdge2);
+    } else if (!assocEnd1Navigable && assocEnd2Navigable) {
+      Edge ownedAttributeEdge = new Edge(null, "ownedAttribute", classNode1, propNode1);
+      Edge ownedEndEdge = new Edge(null, "ownedEnd", assocNode, propNode2);
+      Edge classEdge = new Edge(null, "class", propNode1, classNode1);
+      edgeList.add(memberEndEdge1);
+      edgeList.add(memberEndEdge2);
+      edgeList.add(typeEdge1);
+      edgeList.add(typeEdge2);
+      edgeList.add(ownedAttributeEdge);
+      edgeList.add(ownedEndEdge);
+      edgeList.add(assocEdge1);
+      edgeList.add(assocEdge2);
+      edgeList.add(classEdge);
+      ArrayList<Edge> outgoingEdgeList = assocNode.getOutgoingEdgeList();
+      outgoingEdgeList.add(memberEndEdge1);
+      outgoingEdgeList.add(memberEndEdge2);
+      outgoingEdgeList.add(ownedEndEdge);
+      outgoingEdgeList = propNode1.getOutgoingEdgeList();
+      outgoingEdgeList.add(typeEdge1);
+      outgoingEdgeList.add(classEdge);
+      outgoingEdgeList.add(assocEdge1);
+      outgoingEdgeList = propNode2.getOutgoingEdgeList();
+      outgoingEdgeList.add(typeEdge2);
+      outgoingEdgeList.add(assocEdge2);
+      outgoingEdgeList = classNode1.getOutgoingEdgeList();
+      outgoingEdgeList.add(ownedAttributeEdge);
+      ArrayList<Edge> incomingEdgeList = assocNode.getIncomingEdgeList();
+      incomingEdgeList.add(assocEdge1);
+      incomingEdgeList.add(assocEdge2);
+      incomingEdgeList = propNode1.getIncomingEdgeList();
+      incomingEdgeList.add(ownedAttributeEdge);
+      incomingEdgeList.add(memberEndEdge1);
+      incomingEdgeList = propNode2.getIncomingEdgeList();
+      incomingEdgeList.add(ownedEndEdge);
+      incomingEdgeList.add(memberEndEdge2);
+      incomingEdgeList = classNode1.getIncomingEdgeList();
+      incomingEdgeList.add(typeEdge2);
+      incomingEdgeList.add(classEdge);
+      incomingEdgeList = classNode2.getIncomingEdgeList();
+      incomingEdgeList.add(typeEdge1);
+    } else {
+      Edge ownedAttributeEdge = new Edge(null, "ownedAttribute", classNode2, propNode2);
+      Edge ownedEndEdge = new Edge(null, "ownedEnd", assocNode, propNode1);
+      Edge classEdge = new Edge(null, "class", propNode2, classNode2);
+      edgeList.add(memberEndEdge1);
+      edgeList.add(memberEndEdge2);
+      edgeList.add(typeEdge1);
+      edgeList.add(typeEdge2);
+      edgeList.add(ownedAttributeEdge);
+      edgeList.add(ownedEndEdge);
+      edgeList.add(assocEdge1);
+      edgeList.add(assocEdge2);
+      edgeList.add(classEdge);
+      ArrayList<Edge> outgoingEdgeList = assocNode.getOutgoingEdgeList();
+      outgoingEdgeList.add(memberEndEdge1);
+      outgoingEdgeList.add(memberEndEdge2);
+      outgoingEdgeList.add(ownedEndEdge);
+      outgoingEdgeList = propNode1.getOutgoingEdgeList();
+      outgoingEdgeList.add(typeEdge1);
+      outgoingEdgeList.add(assocEdge1);
+      outgoingEdgeList = propNode2.getOutgoingEdgeList();
+      outgoingEdgeList.add(typeEdge2);
+      outgoingEdgeList.add(classEdge);
+      outgoingEdgeList.add(assocEdge2);
+      outgoingEdgeList = classNode2.getOutgoingEdgeList();
+      outgoingEdgeList.add(ownedAttributeEdge);
+      ArrayList<Edge> incomingEdgeList = assocNode.getIncomingEdgeList();
+      incomingEdgeList.add(assocEdge1);
+      incomingEdgeList.add(assocEdge2);
+      incomingEdgeList = propNode1.getIncomingEdgeList();
+      incomingEdgeList.add(ownedEndEdge);
+      incomingEdgeList.add(memberEndEdge1);
+      incomingEdgeList = propNode2.getIncomingEdgeList();
+      incomingEdgeList.add(ownedAttributeEdge);
+      incomingEdgeList.add(memberEndEdge2);
+      incomingEdgeList = classNode1.getIncomingEdgeList();
+      incomingEdgeList.add(typeEdge2);
+      incomingEdgeList = classNode2.getIncomingEdgeList();
+      incomingEdgeList.add(typeEdge1);
+      incomingEdgeList.add(classEdge);
+    }
+    addBounds(propNode1, assocEnd2Lower, assocEnd2Upper);
+    addBounds(propNode2, assocEnd1Lower, assocEnd1Upper);
+    return true;
+  }
+
+  /**
+   * Adds an attribute of the given class typed by the given data type.
+   * The multiplicity of the attribute is always 1..1.
+   * @param attrName - the attribute name
+   *        classNode - the graph node of the class
+   *        dataTypeNode - the graph node of the data type
+   */
+  public void addAttribute(String attrName, Node classNode, Node dataTypeNode) {
+    ArrayList<Edge> edgeList = diagramGraph.getEdgeList();
+    Node propNode = new Node(attrName, "Property");
+    diagramGraph.getNodeList().add(propNode);
+    Edge classEdge = new Edge(null, "class", propNode, classNode);
+    Edge ownedAttrEdge = new Edge(null, "ownedAttribute", classNode, propNode);
+    Edge typeEdge = new Edge(null, "type", propNode, dataTypeNode);
+    edgeList.add(typeEdge);
+    edgeList.add(classEdge);
+    edgeList.add(ownedAttrEdge);
+    ArrayList<Edge> outgoingEdgeList = propNode.getOutgoingEdgeList();
+    outgoingEdgeList.add(typeEdge);
+    outgoingEdgeList.add(classEdge);
+    outgoingEdgeList = classNode.getOutgoingEdgeList();
+    outgoingEdgeList.add(ownedAttrEdge);
+    ArrayList<Edge> incomingEdgeList = classNode.getIncomingEdgeList();
+    incomingEdgeList.add(classEdge);
+    incomingEdgeList = dataTypeNode.getIncomingEdgeList();
+    incomingEdgeList.add(typeEdge);
+    incomingEdgeList = propNode.getIncomingEdgeList();
+    incomingEdgeList.add(ownedAttrEdge);
+    addBounds(propNode, 1, 1);
+  }
+
+  /**
+   * Adds the lower and upper attributes of the given graph node of
+   * Property type.
+   * @param propNode - the graph node of Property type
+   *        lowerBound - the lower bound
+   *        upperBound - the upper bound; -1 for unlimited
+   */
+  private void addBounds(Node propNode, int lowerBound, int upperBound) {
+    ArrayList<DataNode> dataNodeList = diagramGraph.getDataNodeList();
+    ArrayList<AttributeEdge> attrEdgeList = diagramGraph.getAttributeEdgeList();
+    ArrayList<AttributeEdge> outgoingAttrEdgeList = propNode.getAttributeEdgeList();
+    DataNode dataNode = new DataNode(String.valueOf(lowerBound), "Integer", null);
+    dataNodeList.add(dataNode);
+    AttributeEdge attrEdge = new AttributeEdge(null, "lower", propNode, dataNode);
+    attrEdgeList.add(attrEdge);
+    outgoingAttrEdgeList.add(attrEdge);
+    dataNode = new DataNode(String.valueOf(upperBound), "Integer", null);
+    dataNodeList.add(dataNode);
+    attrEdge = new AttributeEdge(null, "upper", propNode, dataNode);
+    attrEdgeList.add(attrEdge);
+    outgoingAttrEdgeList.add(attrEdge);
+  }
+
+}
\ No newline at end of file
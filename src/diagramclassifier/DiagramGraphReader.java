@@ -0,0 +1,184 @@
+package diagramclassifier;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * This class reads the E-graphs of a graph file written by
+ * DiagramGraphWriter one record at a time. The file is read sequentially
+ * through a large buffer, and the E-graphs are rebuilt with the same
+ * order of the elements as the written ones.
+ * @author Alexey Tazin
+ */
+public class DiagramGraphReader implements Closeable {
+
+  private DataInputStream inputStream;
+
+  // The strings read so far in the order of their first occurrences
+  private ArrayList<String> stringList = new ArrayList<String>();
+
+  // The current record
+  private String diagramName;
+  private DiagramGraph diagramGraph;
+  private String failure;
+
+  /**
+   * Opens the given graph file and checks its header.
+   * @param graphFile - the graph file
+   * @throws IOException if the file is not a graph file of a known version
+   */
+  public DiagramGraphReader(File graphFile) throws IOException {
+    this(new FileInputStream(graphFile));
+  }
+
+  /**
+   * Reads the header of a graph file from the given stream.
+   * @param inputStream - the input stream, closed by close
+   * @throws IOException if the stream is not a graph file of a known version
+   */
+  public DiagramGraphReader(InputStream inputStream) throws IOException {
+    this.inputStream = new DataInputStream(new BufferedInputStream(inputStream, 1 << 20));
+    byte[] magic = new byte[DiagramGraphWriter.MAGIC.length];
+    this.inputStream.readFully(magic);
+    if (!Arrays.equals(magic, DiagramGraphWriter.MAGIC)) {
+      close();
+      throw new IOException("Not a graph file");
+    }
+    int version = readNumber();
+    if (version != DiagramGraphWriter.VERSION) {
+      close();
+      throw new IOException("Unsupported graph file version: " + version);
+    }
+  }
+
+  /**
+   * Reads the next record.
+   * @return true if a record is read; false at the end of the file
+   * @throws EOFException if the file ends without the end record, which 
+   *         is left out by an interrupted conversion
+   */
+  public boolean next() throws IOException {
+    int recordType = inputStream.read();
+    if (recordType == -1)
+      throw new EOFException("Truncated graph file");
+    if (recordType == DiagramGraphWriter.END_RECORD)
+      return false;
+    diagramName = readText();
+    if (recordType == DiagramGraphWriter.GRAPH_RECORD) {
+      diagramGraph = readDiagramGraph();
+      failure = null;
+    } else if (recordType == DiagramGraphWriter.FAILURE_RECORD) {
+      diagramGraph = null;
+      failure = readText();
+    } else
+      throw new IOException("Unknown record type " + recordType + " of " + diagramName);
+    return true;
+  }
+
+  public String getDiagramName() {
+    return diagramName;
+  }
+
+  /**
+   * Returns the E-graph of the current record; null if the diagram could
+   * not be parsed.
+   */
+  public DiagramGraph getDiagramGraph() {
+    return diagramGraph;
+  }
+
+  /**
+   * Returns the failure of the current record, TIMEOUT or ERROR; null if
+   * the diagram was parsed.
+   */
+  public String getFailure() {
+    return failure;
+  }
+
+  public void close() throws IOException {
+    inputStream.close();
+  }
+
+  private DiagramGraph readDiagramGraph() throws IOException {
+    DiagramGraph diagramGraph = new DiagramGraph();
+    ArrayList<Node> nodeList = diagramGraph.getNodeList();
+    ArrayList<DataNode> dataNodeList = diagramGraph.getDataNodeList();
+    ArrayList<Edge> edgeList = diagramGraph.getEdgeList();
+    ArrayList<AttributeEdge> attributeEdgeList = diagramGraph.getAttributeEdgeList();
+
+    int nodesNum = readNumber();
+    nodeList.ensureCapacity(nodesNum);
+    for (int i = 0; i < nodesNum; i++) {
+      String type = readString();
+      nodeList.add(new Node(readString(), type));
+    }
+    int dataNodesNum = readNumber();
+    dataNodeList.ensureCapacity(dataNodesNum);
+    for (int i = 0; i < dataNodesNum; i++) {
+      String type = readString();
+      String value = readString();
+      dataNodeList.add(new DataNode(value, type, readString()));
+    }
+    int edgesNum = readNumber();
+    edgeList.ensureCapacity(edgesNum);
+    for (int i = 0; i < edgesNum; i++) {
+      String type = readString();
+      String name = readString();
+      Node source = nodeList.get(readNumber());
+      edgeList.add(new Edge(name, type, source, nodeList.get(readNumber())));
+    }
+    int attributeEdgesNum = readNumber();
+    attributeEdgeList.ensureCapacity(attributeEdgesNum);
+    for (int i = 0; i < attributeEdgesNum; i++) {
+      String type = readString();
+      String name = readString();
+      Node source = nodeList.get(readNumber());
+      attributeEdgeList.add(new AttributeEdge(name, type, source, dataNodeList.get(readNumber())));
+    }
+
+    for (Node node : nodeList) {
+      readElements(node.getOutgoingEdgeList(), edgeList);
+      readElements(node.getIncomingEdgeList(), edgeList);
+      readElements(node.getAttributeEdgeList(), attributeEdgeList);
+    }
+    return diagramGraph;
+  }
+
+  private <T> void readElements(ArrayList<T> elementList, ArrayList<T> allElementList) throws IOException {
+    int elementsNum = readNumber();
+    for (int i = 0; i < elementsNum; i++)
+      elementList.add(allElementList.get(readNumber()));
+  }
+
+  private String readString() throws IOException {
+    int index = readNumber();
+    if (index == 0)
+      return null;
+    if (index <= stringList.size())
+      return stringList.get(index - 1);
+    if (index != stringList.size() + 1)
+      throw new IOException("Invalid string number " + index);
+    String string = readText();
+    stringList.add(string);
+    return string;
+  }
+
+  private String readText() throws IOException {
+    byte[] bytes = new byte[readNumber()];
+    inputStream.readFully(bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  private int readNumber() throws IOException {
+    int number = 0;
+    for (int shift = 0; shift < 35; shift += 7) {
+      int b = inputStream.readByte();
+      number |= (b & 0x7f) << shift;
+      if ((b & 0x80) == 0)
+        return number;
+    }
+    throw new IOException("Invalid number");
+  }
+
+}
\ No newline at end of file
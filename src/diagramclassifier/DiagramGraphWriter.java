@@ -0,0 +1,188 @@
+package diagramclassifier;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * This class writes E-graphs to a graph file, so that a corpus parsed once
+ * can be classified many times without parsing it again. A graph file
+ * starts with the magic bytes DGRF and the format version, followed by one
+ * record per diagram and a zero byte at the end:
+ *
+ *   1 NAME GRAPH   - the E-graph of the diagram
+ *   2 NAME FAILURE - a diagram that could not be parsed; FAILURE is
+ *                    TIMEOUT or ERROR
+ *
+ * The integers are written as variable-length unsigned numbers of 7 bits
+ * per byte. The type, name and value strings of the graph elements are
+ * interned for the whole file: a string is written as its number in the
+ * order of the first occurrences, 0 for null, and its first occurrence is
+ * followed by the string itself. The diagram names and the failures are
+ * written as plain strings. A GRAPH lists the nodes (type, name), the data
+ * nodes (type, value, name), the edges (type, name, source node index,
+ * target node index) and the attribute edges (type, name, source node
+ * index, target data node index), each preceded by their number, and then
+ * the indices of the outgoing, incoming and attribute edges of each node
+ * in their order in the node. The zero byte is written by finish only, so 
+ * the reader tells a file left by an interrupted conversion from a 
+ * complete one.
+ * @author Alexey Tazin
+ */
+public class DiagramGraphWriter implements Closeable {
+
+  // The magic bytes at the start of a graph file
+  public static final byte[] MAGIC = {'D', 'G', 'R', 'F'};
+
+  // The version of the graph file format
+  public static final int VERSION = 1;
+
+  // The record types
+  public static final int END_RECORD = 0;
+  public static final int GRAPH_RECORD = 1;
+  public static final int FAILURE_RECORD = 2;
+
+  private DataOutputStream outputStream;
+
+  // The numbers of the strings written so far
+  private HashMap<String, Integer> stringIndexMap = new HashMap<String, Integer>();
+
+  /**
+   * Creates the given graph file and writes its header.
+   * @param graphFile - the graph file
+   */
+  public DiagramGraphWriter(File graphFile) throws IOException {
+    this(new FileOutputStream(graphFile));
+  }
+
+  /**
+   * Writes the header of a graph file to the given stream.
+   * @param outputStream - the output stream, closed by close
+   */
+  public DiagramGraphWriter(OutputStream outputStream) throws IOException {
+    this.outputStream = new DataOutputStream(new BufferedOutputStream(outputStream, 1 << 16));
+    this.outputStream.write(MAGIC);
+    writeNumber(VERSION);
+  }
+
+  /**
+   * Writes the E-graph of the given class diagram.
+   * @param diagramName - the class diagram name
+   *        diagramGraph - the class diagram E-graph
+   */
+  public void write(String diagramName, DiagramGraph diagramGraph) throws IOException {
+    outputStream.writeByte(GRAPH_RECORD);
+    writeText(diagramName);
+
+    ArrayList<Node> nodeList = diagramGraph.getNodeList();
+    ArrayList<DataNode> dataNodeList = diagramGraph.getDataNodeList();
+    ArrayList<Edge> edgeList = diagramGraph.getEdgeList();
+    ArrayList<AttributeEdge> attributeEdgeList = diagramGraph.getAttributeEdgeList();
+    IdentityHashMap<Object, Integer> indexMap = new IdentityHashMap<Object, Integer>();
+
+    writeNumber(nodeList.size());
+    for (int i = 0; i < nodeList.size(); i++) {
+      Node node = nodeList.get(i);
+      writeString(node.getType());
+      writeString(node.getName());
+      indexMap.put(node, i);
+    }
+    writeNumber(dataNodeList.size());
+    for (int i = 0; i < dataNodeList.size(); i++) {
+      DataNode dataNode = dataNodeList.get(i);
+      writeString(dataNode.getType());
+      writeString(dataNode.getValue());
+      writeString(dataNode.getName());
+      indexMap.put(dataNode, i);
+    }
+    writeNumber(edgeList.size());
+    for (int i = 0; i < edgeList.size(); i++) {
+      Edge edge = edgeList.get(i);
+      writeString(edge.getType());
+      writeString(edge.getName());
+      writeNumber(indexMap.get(edge.getSource()));
+      writeNumber(indexMap.get(edge.getTarget()));
+      indexMap.put(edge, i);
+    }
+    writeNumber(attributeEdgeList.size());
+    for (int i = 0; i < attributeEdgeList.size(); i++) {
+      AttributeEdge attrEdge = attributeEdgeList.get(i);
+      writeString(attrEdge.getType());
+      writeString(attrEdge.getName());
+      writeNumber(indexMap.get(attrEdge.getSource()));
+      writeNumber(indexMap.get(attrEdge.getTarget()));
+      indexMap.put(attrEdge, i);
+    }
+
+    for (Node node : nodeList) {
+      writeIndices(node.getOutgoingEdgeList(), indexMap);
+      writeIndices(node.getIncomingEdgeList(), indexMap);
+      writeIndices(node.getAttributeEdgeList(), indexMap);
+    }
+  }
+
+  /**
+   * Writes a class diagram that could not be parsed.
+   * @param diagramName - the class diagram name
+   *        failure - TIMEOUT or ERROR
+   */
+  public void writeFailure(String diagramName, String failure) throws IOException {
+    outputStream.writeByte(FAILURE_RECORD);
+    writeText(diagramName);
+    writeText(failure);
+  }
+
+  /**
+   * Writes the end of the graph file and closes it. A graph file closed 
+   * without it is read as truncated.
+   */
+  public void finish() throws IOException {
+    outputStream.writeByte(END_RECORD);
+    outputStream.close();
+  }
+
+  /**
+   * Closes the graph file without writing its end, so that a file not 
+   * finished is not taken for a complete one.
+   */
+  public void close() throws IOException {
+    outputStream.close();
+  }
+
+  private void writeIndices(ArrayList<?> elementList, IdentityHashMap<Object, Integer> indexMap) throws IOException {
+    writeNumber(elementList.size());
+    for (Object element : elementList)
+      writeNumber(indexMap.get(element));
+  }
+
+  private void writeString(String string) throws IOException {
+    if (string == null) {
+      writeNumber(0);
+      return;
+    }
+    Integer index = stringIndexMap.get(string);
+    if (index != null) {
+      writeNumber(index);
+      return;
+    }
+    index = stringIndexMap.size() + 1;
+    stringIndexMap.put(string, index);
+    writeNumber(index);
+    writeText(string);
+  }
+
+  private void writeText(String text) throws IOException {
+    byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+    writeNumber(bytes.length);
+    outputStream.write(bytes);
+  }
+
+  private void writeNumber(int number) throws IOException {
+    while ((number & ~0x7f) != 0) {
+      outputStream.writeByte((number & 0x7f) | 0x80);
+      number >>>= 7;
+    }
+    outputStream.writeByte(number);
+  }
+
+}
\ No newline at end of file
@@ -0,0 +1,57 @@
+package diagramclassifier;
+
+import java.io.*;
+import java.nio.file.*;
+import java.util.*;
+
+/**
+ * This interface represents a source of the class diagrams to classify. 
+ * The source produces the names of the XMI files lazily, so enumerating 
+ * the input overlaps with classification.
+ * @author Alexey Tazin 
+ */
+public interface DiagramInputSource extends Iterator<String>, Closeable {
+
+  /**
+   * Opens the input source described by the given specification. The 
+   * specification is one of the following.
+   * <ul>
+   * <li>dir:PATH - the XMI files in the directory tree under PATH</li>
+   * <li>glob:PATTERN - the files matching the glob pattern, for example 
+   *     corpus/**&#47;*.xmi</li>
+   * <li>manifest:FILE - the files listed in FILE, one per line</li>
+   * <li>stdin - the files listed in the standard input separated by NUL 
+   *     characters, as printed by find -print0</li>
+   * <li>bundle:FILE - the entries of the XMI bundle FILE described in 
+   *     XmiBundle</li>
+   * </ul>
+   * @param inputSpec - the input source specification
+   * @return the input source
+   * @throws IllegalArgumentException if the specification is invalid
+   */
+  public static DiagramInputSource open(String inputSpec) throws IOException {
+    if (inputSpec.startsWith("dir:"))
+      return new DirectoryInputSource(Paths.get(inputSpec.substring(4)), null);
+    if (inputSpec.startsWith("glob:"))
+      return DirectoryInputSource.createGlobInputSource(inputSpec.substring(5));
+    if (inputSpec.startsWith("manifest:"))
+      return new ManifestInputSource(new FileInputStream(inputSpec.substring(9)), false);
+    if (inputSpec.equals("stdin"))
+      return new ManifestInputSource(System.in, true);
+    if (inputSpec.startsWith("bundle:"))
+      return XmiBundle.openInputSource(inputSpec.substring(7));
+    throw new IllegalArgumentException("Invalid input: " + inputSpec);
+  }
+
+  /**
+   * Returns true if the given file contains a class diagram the classifier 
+   * can read.
+   * @param fileName - the file name
+   * @return true if the file contains a class diagram; false otherwise
+   */
+  public static boolean isDiagramFile(String fileName) {
+    return fileName.toLowerCase().endsWith(".xmi") || XmiFiles.isZargoFile(fileName) || 
+           XmiFiles.isCompressedXmiFile(fileName);
+  }
+
+}
\ No newline at end of file
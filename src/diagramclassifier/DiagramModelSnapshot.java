@@ -0,0 +1,227 @@
+package diagramclassifier;
+
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.atomic.*;
+import org.argouml.model.*;
+
+/**
+ * This class caches the properties of the elements of an ArgoUML model
+ * that DiagramGraphGenerator reads. The MDR facade reads each property
+ * through a reflective JMI lookup, while the generator asks for the same
+ * names and association ends many times. The first read of a property of
+ * an element asks the facade or the core helper, and stores the value,
+ * with the collections copied into plain lists, so the later reads are
+ * served from the snapshot. A snapshot is made for one diagram and
+ * dropped with its model extent. The hits and the misses of all the
+ * snapshots are counted for the run.
+ * @author Alexey Tazin
+ */
+public class DiagramModelSnapshot {
+
+  // The properties of an element
+  private static final int NAME = 0;
+  private static final int LOWER = 1;
+  private static final int UPPER = 2;
+  private static final int NAVIGABLE = 3;
+  private static final int ASSOCIATION_ENDS = 4;
+  private static final int ATTRIBUTES = 5;
+  private static final int TYPE = 6;
+  private static final int NEXT_END = 7;
+  private static final int ASSOCIATION = 8;
+  private static final int GENERALIZATIONS = 9;
+  private static final int GENERAL = 10;
+  private static final int GENERALIZATION = 11;
+  private static final int ASSOCIATION_END = 12;
+  private static final int PROPERTIES_NUM = 13;
+
+  // The value of a property not read yet
+  private static final Object UNREAD = new Object();
+
+  // The hits and the misses of all the snapshots
+  private static final AtomicLong totalHitsNum = new AtomicLong();
+  private static final AtomicLong totalMissesNum = new AtomicLong();
+
+  private Facade facade;
+
+  private CoreHelper coreHelper;
+
+  // The properties of the elements read so far
+  private IdentityHashMap<Object, Object[]> elementPropertiesMap = new IdentityHashMap<Object, Object[]>();
+
+  // The association ends of the associations by their classifiers
+  private IdentityHashMap<Object, IdentityHashMap<Object, Object>> associationEndMap =
+    new IdentityHashMap<Object, IdentityHashMap<Object, Object>>();
+
+  private long hitsNum = 0;
+
+  private long missesNum = 0;
+
+  /**
+   * Creates an empty snapshot of a model of the given model implementation.
+   * @param modelImpl - the ArgoUML model implemetation
+   */
+  public DiagramModelSnapshot(ModelImplementation modelImpl) {
+    this.facade = modelImpl.getFacade();
+    this.coreHelper = modelImpl.getCoreHelper();
+  }
+
+  public String getName(Object element) {
+    return (String) getProperty(element, NAME);
+  }
+
+  public int getLower(Object element) {
+    return (Integer) getProperty(element, LOWER);
+  }
+
+  public int getUpper(Object element) {
+    return (Integer) getProperty(element, UPPER);
+  }
+
+  public boolean isNavigable(Object element) {
+    return (Boolean) getProperty(element, NAVIGABLE);
+  }
+
+  @SuppressWarnings("unchecked")
+  public ArrayList<Object> getAssociationEnds(Object element) {
+    return (ArrayList<Object>) getProperty(element, ASSOCIATION_ENDS);
+  }
+
+  @SuppressWarnings("unchecked")
+  public ArrayList<Object> getAttributes(Object element) {
+    return (ArrayList<Object>) getProperty(element, ATTRIBUTES);
+  }
+
+  public Object getType(Object element) {
+    return getProperty(element, TYPE);
+  }
+
+  public Object getNextEnd(Object element) {
+    return getProperty(element, NEXT_END);
+  }
+
+  public Object getAssociation(Object element) {
+    return getProperty(element, ASSOCIATION);
+  }
+
+  @SuppressWarnings("unchecked")
+  public ArrayList<Object> getGeneralizations(Object element) {
+    return (ArrayList<Object>) getProperty(element, GENERALIZATIONS);
+  }
+
+  public Object getGeneral(Object element) {
+    return getProperty(element, GENERAL);
+  }
+
+  public boolean isAGeneralization(Object element) {
+    return (Boolean) getProperty(element, GENERALIZATION);
+  }
+
+  public boolean isAAssociationEnd(Object element) {
+    return (Boolean) getProperty(element, ASSOCIATION_END);
+  }
+
+  /**
+   * Returns the end of the given association at the given classifier.
+   * @param classifier - the classifier
+   *        assoc - the association
+   * @return the association end as found by the core helper
+   */
+  public Object getAssociationEnd(Object classifier, Object assoc) {
+    IdentityHashMap<Object, Object> classifierEndMap = associationEndMap.get(assoc);
+    if (classifierEndMap == null) {
+      classifierEndMap = new IdentityHashMap<Object, Object>();
+      associationEndMap.put(assoc, classifierEndMap);
+    }
+    if (classifierEndMap.containsKey(classifier)) {
+      hitsNum++;
+      return classifierEndMap.get(classifier);
+    }
+    missesNum++;
+    Object assocEnd = coreHelper.getAssociationEnd(classifier, assoc);
+    classifierEndMap.put(classifier, assocEnd);
+    return assocEnd;
+  }
+
+  private Object getProperty(Object element, int property) {
+    Object[] properties = elementPropertiesMap.get(element);
+    if (properties == null) {
+      properties = new Object[PROPERTIES_NUM];
+      Arrays.fill(properties, UNREAD);
+      elementPropertiesMap.put(element, properties);
+    }
+    if (properties[property] != UNREAD) {
+      hitsNum++;
+      return properties[property];
+    }
+    missesNum++;
+    Object value = readProperty(element, property);
+    properties[property] = value;
+    return value;
+  }
+
+  private Object readProperty(Object element, int property) {
+    switch (property) {
+      case NAME:
+        return facade.getName(element);
+      case LOWER:
+        return facade.getLower(element);
+      case UPPER:
+        return facade.getUpper(element);
+      case NAVIGABLE:
+        return facade.isNavigable(element);
+      case ASSOCIATION_ENDS:
+        return new ArrayList<Object>((Collection<?>) facade.getAssociationEnds(element));
+      case ATTRIBUTES:
+        return new ArrayList<Object>((Collection<?>) facade.getAttributes(element));
+      case TYPE:
+        return facade.getType(element);
+      case NEXT_END:
+        return facade.getNextEnd(element);
+      case ASSOCIATION:
+        return facade.getAssociation(element);
+      case GENERALIZATIONS:
+        return new ArrayList<Object>((Collection<?>) facade.getGeneralizations(element));
+      case GENERAL:
+        return facade.getGeneral(element);
+      case GENERALIZATION:
+        return facade.isAGeneralization(element);
+      case ASSOCIATION_END:
+        return facade.isAAssociationEnd(element);
+      default:
+        throw new IllegalArgumentException("Unknown property: " + property);
+    }
+  }
+
+  public long getHitsNum() {
+    return hitsNum;
+  }
+
+  public long getMissesNum() {
+    return missesNum;
+  }
+
+  /**
+   * Adds the hits and the misses of the snapshot to the totals of the run.
+   * The snapshot should not be read any more.
+   */
+  public void close() {
+    totalHitsNum.addAndGet(hitsNum);
+    totalMissesNum.addAndGet(missesNum);
+  }
+
+  /**
+   * Prints the hits, the misses and the hit rate of all the snapshots of
+   * the run. Nothing is printed if no snapshot was read.
+   * @param printStream - the stream the statistics are printed to
+   */
+  public static void printStatistics(PrintStream printStream) {
+    long hitsNum = totalHitsNum.get();
+    long missesNum = totalMissesNum.get();
+    if (hitsNum + missesNum == 0)
+      return;
+    printStream.println("Facade cache: " + hitsNum + " hits, " + missesNum + " misses, " +
+                        String.format(Locale.ROOT, "%.1f", 100.0 * hitsNum / (hitsNum + missesNum)) + "% hit rate");
+  }
+
+}
\ No newline at end of file
@@ -0,0 +1,83 @@
+package diagramclassifier;
+
+import java.io.*;
+import java.util.*;
+import org.argouml.model.*;
+
+/**
+ * This is the main class of a child process parsing XMI files for 
+ * DiagramParserPool. The process owns its own ArgoUML model implementation. 
+ * It reads XMI file names from the standard input, one per line, and writes 
+ * the E-graphs representing the class diagrams to the standard output. The 
+ * only argument is the ArgoUML model backend, mdr by default.
+ * <p>
+ * Once the model is initialized, the process writes the magic bytes of a 
+ * graph file. Each diagram is then answered by the length of a graph file 
+ * holding its single record, written by DiagramGraphWriter, followed by 
+ * the graph file itself, so the E-graphs are sent without recursing along 
+ * their edges. A diagram that could not be parsed is answered by a failure 
+ * record. The answer is written only once the whole graph file is made.
+ * @author Alexey Tazin 
+ */
+public class DiagramParseWorker {
+
+  public static void main(String[] args) {
+    // The standard output carries the E-graphs, everything else goes to 
+    // the standard error
+    OutputStream graphOutputStream = new FileOutputStream(FileDescriptor.out);
+    System.setOut(System.err);
+    try {
+
+      ModelImplementation modelImpl = InitializeModel.initializeModel(args.length > 0 ? args[0] : "mdr");
+
+      BufferedReader reader = new BufferedReader(new InputStreamReader(System.in, "UTF-8"));
+      DataOutputStream outputStream = new DataOutputStream(new BufferedOutputStream(graphOutputStream));
+      outputStream.write(DiagramGraphWriter.MAGIC);
+      outputStream.flush();
+
+      String diagramFileName;
+      while ((diagramFileName = reader.readLine()) != null) {
+        DiagramGraph diagramGraph = null;
+        String failure = null;
+        try {
+          diagramGraph = DiagramClassifier.readDiagramGraph(modelImpl, new File(diagramFileName));
+        } catch (Exception e) {
+          e.printStackTrace();
+          failure = DiagramClassCatalog.getFailure(e);
+        }
+        byte[] graphFileBytes = writeGraphFile(diagramFileName, diagramGraph, failure);
+        outputStream.writeInt(graphFileBytes.length);
+        outputStream.write(graphFileBytes);
+        outputStream.flush();
+      }
+
+      outputStream.close();
+
+    } catch (Exception e) {
+      e.printStackTrace();
+      System.exit(1);
+    }
+  }
+
+  /**
+   * Writes a graph file holding the E-graph or the failure of the given 
+   * class diagram.
+   * @param diagramName - the class diagram name
+   *        diagramGraph - the class diagram E-graph; null if the diagram 
+   *        could not be parsed
+   *        failure - TIMEOUT or ERROR if the diagram could not be parsed
+   * @return the contents of the graph file
+   */
+  private static byte[] writeGraphFile(String diagramName, DiagramGraph diagramGraph, String failure) 
+    throws IOException {
+    ByteArrayOutputStream graphFileStream = new ByteArrayOutputStream();
+    DiagramGraphWriter diagramGraphWriter = new DiagramGraphWriter(graphFileStream);
+    if (diagramGraph != null)
+      diagramGraphWriter.write(diagramName, diagramGraph);
+    else
+      diagramGraphWriter.writeFailure(diagramName, failure);
+    diagramGraphWriter.finish();
+    return graphFileStream.toByteArray();
+  }
+
+}
\ No newline at end of file
@@ -0,0 +1,255 @@
+package diagramclassifier;
+
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+
+/**
+ * This class represents a pool of long-lived child processes parsing XMI 
+ * files. The ArgoUML model subsystem is shared by the whole process, so 
+ * the XMI files can only be parsed in parallel by separate JVMs. Each child 
+ * process runs DiagramParseWorker and sends back the E-graphs over its 
+ * standard output in the format of DiagramGraphWriter. A child process that dies or exceeds the time 
+ * budget of a diagram is killed and started again, and only its diagram 
+ * fails.
+ * @author Alexey Tazin 
+ */
+public class DiagramParserPool {
+
+  // The command line of a child process
+  private String[] command;
+
+  // The time budget of parsing a diagram in milliseconds; 0 if there is 
+  // no limit
+  private long timeout;
+
+  // The timer killing the child processes that exceed the time budget
+  private ScheduledExecutorService killTimer = null;
+
+  // The child processes
+  private ArrayList<Process> processList = new ArrayList<Process>();
+
+  // The writers sending XMI file names to the child processes
+  private ArrayList<Writer> writerList = new ArrayList<Writer>();
+
+  // The streams receiving E-graphs from the child processes, opened lazily 
+  // since the child process writes the magic bytes of a graph file once it 
+  // has started up
+  private DataInputStream[] inputStreams;
+
+  /**
+   * Starts the given number of child processes with the MDR model backend.
+   * @param processesNum - the number of child processes
+   */
+  public DiagramParserPool(int processesNum) throws IOException {
+    this(processesNum, "mdr");
+  }
+
+  /**
+   * Starts the given number of child processes. The child processes run 
+   * with the class path of the current process.
+   * @param processesNum - the number of child processes
+   *        modelBackend - the ArgoUML model backend of the child processes: 
+   *        mdr or euml
+   */
+  public DiagramParserPool(int processesNum, String modelBackend) throws IOException {
+    this(processesNum, modelBackend, 0);
+  }
+
+  /**
+   * Starts the given number of child processes. The child processes run 
+   * with the class path of the current process.
+   * @param processesNum - the number of child processes
+   *        modelBackend - the ArgoUML model backend of the child processes: 
+   *        mdr or euml
+   *        timeout - the time budget of parsing a diagram in milliseconds; 
+   *        0 if there is no limit
+   */
+  public DiagramParserPool(int processesNum, String modelBackend, long timeout) throws IOException {
+    String javaCommand = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+    command = new String[] {javaCommand, "-cp", System.getProperty("java.class.path"), 
+                            DiagramParseWorker.class.getName(), modelBackend};
+    this.timeout = timeout;
+    if (timeout > 0)
+      killTimer = Executors.newSingleThreadScheduledExecutor();
+    inputStreams = new DataInputStream[processesNum];
+    for (int i = 0; i < processesNum; i++) {
+      processList.add(null);
+      writerList.add(null);
+      startProcess(i);
+    }
+  }
+
+  /**
+   * Starts the given child process in place of the previous one, if any.
+   * @param processIndex - the index of the child process
+   */
+  private void startProcess(int processIndex) throws IOException {
+    ProcessBuilder processBuilder = new ProcessBuilder(command);
+    processBuilder.redirectError(ProcessBuilder.Redirect.INHERIT);
+    Process process = processBuilder.start();
+    processList.set(processIndex, process);
+    writerList.set(processIndex, new BufferedWriter(new OutputStreamWriter(process.getOutputStream(), "UTF-8")));
+    inputStreams[processIndex] = null;
+  }
+
+  /**
+   * Kills the given child process and starts it again.
+   * @param processIndex - the index of the child process
+   */
+  private void restartProcess(int processIndex) throws IOException {
+    processList.get(processIndex).destroyForcibly();
+    try {
+      writerList.get(processIndex).close();
+    } catch (IOException e) {
+      // The pipe of the killed process is already broken
+    }
+    startProcess(processIndex);
+  }
+
+  public int size() {
+    return processList.size();
+  }
+
+  /**
+   * Parses the given XMI files in the child processes and generates the 
+   * E-graphs representing the class diagrams stored in them.
+   * @param diagramFileNameList - the XMI file names
+   * @return the E-graphs in the order of the given XMI file names; null 
+   *         for the files that could not be parsed
+   */
+  public ArrayList<DiagramGraph> parse(List<String> diagramFileNameList) throws Exception {
+    return parse(diagramFileNameList, new ArrayList<String>());
+  }
+
+  /**
+   * Parses the given XMI files in the child processes and generates the 
+   * E-graphs representing the class diagrams stored in them.
+   * @param diagramFileNameList - the XMI file names
+   *        failureList - the list the failures of the files are added to 
+   *        in the order of the given XMI file names: TIMEOUT if the time 
+   *        budget was spent, ERROR if the file could not be parsed, null 
+   *        if it was parsed
+   * @return the E-graphs in the order of the given XMI file names; null 
+   *         for the files that could not be parsed
+   */
+  public ArrayList<DiagramGraph> parse(final List<String> diagramFileNameList, ArrayList<String> failureList) 
+    throws Exception {
+    final DiagramGraph[] diagramGraphs = new DiagramGraph[diagramFileNameList.size()];
+    final String[] failures = new String[diagramFileNameList.size()];
+    final LinkedBlockingQueue<Integer> diagramIndexQueue = new LinkedBlockingQueue<Integer>();
+    for (int i = 0; i < diagramGraphs.length; i++)
+      diagramIndexQueue.add(i);
+
+    ExecutorService executor = Executors.newFixedThreadPool(processList.size());
+    try {
+      ArrayList<Future<Void>> futureList = new ArrayList<Future<Void>>();
+      for (int i = 0; i < processList.size(); i++) {
+        final int processIndex = i;
+        futureList.add(executor.submit(new Callable<Void>() {
+          public Void call() throws Exception {
+            Integer diagramIndex;
+            while ((diagramIndex = diagramIndexQueue.poll()) != null)
+              diagramGraphs[diagramIndex] = parse(processIndex, diagramFileNameList.get(diagramIndex), 
+                                                  failures, diagramIndex);
+            return null;
+          }
+        }));
+      }
+      for (Future<Void> future : futureList)
+        future.get();
+    } finally {
+      executor.shutdown();
+    }
+
+    failureList.addAll(Arrays.asList(failures));
+    return new ArrayList<DiagramGraph>(Arrays.asList(diagramGraphs));
+  }
+
+  /**
+   * Parses the given XMI file in the given child process. Each child 
+   * process is used by one thread only. If the child process dies or does 
+   * not answer within the time budget, it is killed and started again.
+   * @param processIndex - the index of the child process
+   *        diagramFileName - the XMI file name
+   *        failures - the failures of the diagrams, TIMEOUT or ERROR
+   *        diagramIndex - the index of the diagram in the failures
+   * @return the E-graph representing the class diagram; null if the file 
+   *         could not be parsed
+   */
+  private DiagramGraph parse(int processIndex, String diagramFileName, String[] failures, int diagramIndex) 
+    throws IOException {
+    final Process process = processList.get(processIndex);
+    // Set either by the timer killing the child process or once the 
+    // result is read, whichever is first
+    final AtomicBoolean answered = new AtomicBoolean(false);
+    ScheduledFuture<?> killFuture = null;
+    try {
+      // The magic bytes are written once the child process has started up, 
+      // which is not a part of the time budget
+      if (inputStreams[processIndex] == null) {
+        DataInputStream inputStream = new DataInputStream(new BufferedInputStream(process.getInputStream()));
+        byte[] magic = new byte[DiagramGraphWriter.MAGIC.length];
+        inputStream.readFully(magic);
+        if (!Arrays.equals(magic, DiagramGraphWriter.MAGIC))
+          throw new IOException("Not a parse worker");
+        inputStreams[processIndex] = inputStream;
+      }
+      DataInputStream inputStream = inputStreams[processIndex];
+      Writer writer = writerList.get(processIndex);
+      writer.write(new File(diagramFileName).getAbsolutePath());
+      writer.write('\n');
+      writer.flush();
+      if (killTimer != null) {
+        killFuture = killTimer.schedule(new Runnable() {
+          public void run() {
+            if (answered.compareAndSet(false, true))
+              process.destroyForcibly();
+          }
+        }, timeout, TimeUnit.MILLISECONDS);
+      }
+      byte[] graphFileBytes = new byte[inputStream.readInt()];
+      inputStream.readFully(graphFileBytes);
+      if (!answered.compareAndSet(false, true))
+        restartProcess(processIndex);
+      else if (killFuture != null)
+        killFuture.cancel(false);
+      DiagramGraphReader diagramGraphReader = new DiagramGraphReader(new ByteArrayInputStream(graphFileBytes));
+      if (!diagramGraphReader.next())
+        throw new IOException("No E-graph of " + diagramFileName);
+      if (diagramGraphReader.getDiagramGraph() == null) {
+        System.err.println("Cannot parse " + diagramFileName + ": " + diagramGraphReader.getFailure());
+        failures[diagramIndex] = diagramGraphReader.getFailure();
+        return null;
+      }
+      return diagramGraphReader.getDiagramGraph();
+    } catch (Exception e) {
+      boolean timedOut = !answered.compareAndSet(false, true);
+      if (killFuture != null)
+        killFuture.cancel(false);
+      System.err.println("Cannot parse " + diagramFileName + ": " + 
+                         (timedOut ? "time budget of " + timeout + " ms spent" : e.toString()));
+      failures[diagramIndex] = timedOut ? "TIMEOUT" : "ERROR";
+      restartProcess(processIndex);
+      return null;
+    }
+  }
+
+  /**
+   * Stops the child processes.
+   */
+  public void close() {
+    if (killTimer != null)
+      killTimer.shutdownNow();
+    for (int i = 0; i < processList.size(); i++) {
+      try {
+        writerList.get(i).close();
+        processList.get(i).waitFor();
+      } catch (Exception e) {
+        processList.get(i).destroy();
+      }
+    }
+  }
+
+}
\ No newline at end of file
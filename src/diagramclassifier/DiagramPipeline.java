@@ -0,0 +1,277 @@
+package diagramclassifier;
+
+import java.io.*;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.*;
+import org.argouml.model.*;
+import org.xml.sax.InputSource;
+
+/**
+ * This class classifies class diagrams in a pipeline of stages connected by 
+ * bounded queues. The stages are reading XMI files, parsing them, building 
+ * E-graphs, covering them by the basic templates, building the complex 
+ * templates as pushouts, canonical labeling and registering the classes. 
+ * Each stage has its own threads so that the stages overlap, and the 
+ * statistics of the stages show which one is the bottleneck.
+ * @author Alexey Tazin 
+ */
+public class DiagramPipeline {
+
+  /**
+   * The pipeline stage names in the processing order.
+   */
+  public static final String[] STAGE_NAMES = {"read", "parse", "build", "cover", "pushout", "label", "register"};
+
+  /**
+   * The lock guarding the ArgoUML model subsystem, which is shared by the 
+   * whole process. The parse and build stages hold it while they access 
+   * the model.
+   */
+  private static final Object modelLock = new Object();
+
+  // The ArgoUML model implemetation
+  private ModelImplementation modelImpl;
+
+  private ArrayList<PipelineStage> stageList = new ArrayList<PipelineStage>();
+
+  private DiagramClassCatalog diagramClassCatalog = new DiagramClassCatalog();
+
+  // The class diagrams that reached the register stage ahead of their turn
+  private TreeMap<Integer, DiagramPipelineItem> pendingItemMap = new TreeMap<Integer, DiagramPipelineItem>();
+
+  // The permits of the class diagrams in flight from reading to 
+  // registering, so that the diagrams waiting for a slow predecessor in 
+  // pendingItemMap do not grow with the input
+  private Semaphore inFlightPermits;
+
+  // The index of the next class diagram to register
+  private int nextItemIndex = 0;
+
+  // The time budget of classifying a class diagram in milliseconds; 0 if 
+  // there is no limit
+  private long timeout;
+
+  // True if the XMI files are read by XmiByteScanner
+  private boolean scanParser;
+
+  // True if the XMI files are checked by XmiPrescanner before parsing
+  private boolean prescan;
+
+  // True if the content hashes of the XMI files are looked up in the 
+  // catalog before parsing
+  private boolean dedup;
+
+  // The first error that stopped registering the classes
+  private Exception error = null;
+
+  /**
+   * Creates the pipeline stages. The number of threads of each stage and 
+   * the queue capacity are taken from the given options. The register stage 
+   * always has one thread.
+   * @param modelImpl - the ArgoUML model implemetation; null if the XMI 
+   *        files are read by XmiGraphReader in the parse stage
+   *        options - the classifier options
+   */
+  public DiagramPipeline(ModelImplementation modelImpl, DiagramClassifierOptions options) {
+    this.modelImpl = modelImpl;
+    this.timeout = options.getTimeout();
+    this.scanParser = options.isScanParser();
+    this.prescan = options.isPrescan();
+    this.dedup = options.isDedup();
+    int queueSize = options.getStageQueueSize();
+    DiagramClassCalculator.ensureLabelThreadsNum(options.getStageThreadsNum("label"));
+    inFlightPermits = new Semaphore(queueSize * STAGE_NAMES.length);
+    stageList.add(new PipelineStage("read", options.getStageThreadsNum("read"), queueSize, new PipelineStage.Processor() {
+      public void process(DiagramPipelineItem item) throws Exception {
+        item.setXmiBytes(XmiPrefetcher.readFile(item.getDiagramName()).getBytes());
+      }
+    }));
+    stageList.add(new PipelineStage("parse", options.getStageThreadsNum("parse"), queueSize, new PipelineStage.Processor() {
+      public void process(DiagramPipelineItem item) throws Exception {
+        if (prescan) {
+          XmiPrefetcher.XmiFile xmiFile = new XmiPrefetcher.XmiFile(item.getDiagramName(), item.getXmiBytes(), null);
+          if (XmiPrescanner.findUnsupportedElement(xmiFile.getXmiBuffer()) != null) {
+            item.setCoverable(false);
+            item.setXmiBytes(null);
+            return;
+          }
+        }
+        // A class diagram with the content hash of a registered one is 
+        // added to its class by the register stage
+        if (dedup) {
+          XmiPrefetcher.XmiFile xmiFile = new XmiPrefetcher.XmiFile(item.getDiagramName(), item.getXmiBytes(), null);
+          item.setContentHash(XmiContentHash.calculateHash(xmiFile.getInputStream()));
+          if (diagramClassCatalog.containsContentHash(item.getContentHash())) {
+            item.setDuplicate(true);
+            item.setXmiBytes(null);
+            return;
+          }
+        }
+        // XmiByteScanner and XmiGraphReader do not share the ArgoUML model 
+        // and build the E-graph right away
+        if (scanParser) {
+          XmiPrefetcher.XmiFile xmiFile = new XmiPrefetcher.XmiFile(item.getDiagramName(), item.getXmiBytes(), null);
+          item.setDiagramGraph(XmiByteScanner.readDiagramGraph(xmiFile.getXmiBuffer()));
+          item.setXmiBytes(null);
+          return;
+        }
+        if (DiagramPipeline.this.modelImpl == null) {
+          InputStream inputStream = XmiFiles.openXmiStream(new ByteArrayInputStream(item.getXmiBytes()));
+          item.setDiagramGraph(XmiGraphReader.readDiagramGraph(inputStream));
+          item.setXmiBytes(null);
+          return;
+        }
+        synchronized (modelLock) {
+          InputSource inputSource = new InputSource(XmiFiles.openXmiStream(new ByteArrayInputStream(item.getXmiBytes())));
+          item.setModel(DiagramGraphGenerator.parseModel(inputSource));
+        }
+        item.setXmiBytes(null);
+      }
+    }));
+    stageList.add(new PipelineStage("build", options.getStageThreadsNum("build"), queueSize, new PipelineStage.Processor() {
+      public void process(DiagramPipelineItem item) throws Exception {
+        if (item.getDiagramGraph() != null || !item.isClassified())
+          return;
+        DiagramGraph diagramGraph = new DiagramGraph();
+        // The model extent is deleted right away, so that the model 
+        // repository holds at most the diagrams in flight
+        synchronized (modelLock) {
+          try {
+            DiagramGraphGenerator.generateDiagramGraph(DiagramPipeline.this.modelImpl, item.getModel(), diagramGraph);
+          } finally {
+            DiagramGraphGenerator.deleteModel(item.getModel());
+          }
+        }
+        item.setModel(null);
+        item.setDiagramGraph(diagramGraph);
+      }
+    }));
+    stageList.add(new PipelineStage("cover", options.getStageThreadsNum("cover"), queueSize, new PipelineStage.Processor() {
+      public void process(DiagramPipelineItem item) {
+        item.setCovered(item.isClassified() && item.getDiagramClassCalculator().coverDiagram(item.getDiagramGraph()));
+      }
+    }));
+    stageList.add(new PipelineStage("pushout", options.getStageThreadsNum("pushout"), queueSize, new PipelineStage.Processor() {
+      public void process(DiagramPipelineItem item) {
+        if (!item.isCovered())
+          return;
+        DiagramClassCalculator diagramClassCalculator = item.getDiagramClassCalculator();
+        item.setComplexPatternGraph(diagramClassCalculator.calculateComplexPatternGraph(item.getDiagramGraph()));
+      }
+    }));
+    stageList.add(new PipelineStage("label", options.getStageThreadsNum("label"), queueSize, new PipelineStage.Processor() {
+      public void process(DiagramPipelineItem item) throws Exception {
+        if (!item.isCovered())
+          return;
+        DiagramClassCalculator diagramClassCalculator = item.getDiagramClassCalculator();
+        item.setGraphClass(diagramClassCalculator.labelDiagramClass(item.getDiagramGraph(), item.getComplexPatternGraph()));
+        item.setComplexPatternGraph(null);
+      }
+    }));
+    stageList.add(new PipelineStage("register", 1, queueSize, new PipelineStage.Processor() {
+      public void process(DiagramPipelineItem item) {
+        // A class diagram that failed between the parse and the build 
+        // stages, e.g. by running out of its time budget, still holds its 
+        // model extent, which is deleted before the diagram is registered
+        if (item.getModel() != null) {
+          try {
+            synchronized (modelLock) {
+              DiagramGraphGenerator.deleteModel(item.getModel());
+            }
+          } catch (Exception e) {
+            e.printStackTrace();
+          }
+          item.setModel(null);
+        }
+        try {
+          registerItem(item);
+        } catch (IOException e) {
+          if (error == null)
+            error = e;
+        }
+      }
+    }));
+    for (int i = 0; i < stageList.size() - 1; i++)
+      stageList.get(i).setNextStage(stageList.get(i + 1));
+  }
+
+  public DiagramClassCatalog getDiagramClassCatalog() {
+    return diagramClassCatalog;
+  }
+
+  /**
+   * Classifies the given class diagrams. The classes are registered in the 
+   * order of the given XMI file names, so the class numbering is the same 
+   * as in the sequential run. The file names are taken as the read stage 
+   * accepts them. The class diagrams that fail or run out of their time 
+   * budget are added to the failed diagrams of the catalog. At most as 
+   * many class diagrams as the queues hold are in flight, so the reading 
+   * waits while a diagram is held up in a slow stage.
+   * @param diagramFileNameIterator - the XMI file names
+   * @return the classes of the class diagrams
+   * @throws Exception the first error that stopped registering the classes
+   */
+  public DiagramClassCatalog run(Iterator<String> diagramFileNameIterator) throws Exception {
+    for (PipelineStage stage : stageList)
+      stage.start();
+    PipelineStage firstStage = stageList.get(0);
+    try {
+      for (int i = 0; diagramFileNameIterator.hasNext(); i++) {
+        DiagramPipelineItem item = new DiagramPipelineItem(i, diagramFileNameIterator.next());
+        if (timeout > 0) {
+          item.setDeadline(new DiagramDeadline(timeout));
+          item.getDiagramClassCalculator().setDeadline(item.getDeadline());
+        }
+        inFlightPermits.acquire();
+        firstStage.put(item);
+      }
+    } finally {
+      firstStage.close();
+    }
+    for (PipelineStage stage : stageList)
+      stage.join();
+    if (error != null)
+      throw error;
+    return diagramClassCatalog;
+  }
+
+  /**
+   * Registers the classes of the class diagrams in the input order. A class 
+   * diagram that overtook its predecessors waits until they are registered. 
+   * Only the register stage calls this.
+   * @param item - the class diagram
+   */
+  private void registerItem(DiagramPipelineItem item) throws IOException {
+    pendingItemMap.put(item.getIndex(), item);
+    while (!pendingItemMap.isEmpty() && pendingItemMap.firstKey() == nextItemIndex) {
+      DiagramPipelineItem nextItem = pendingItemMap.remove(pendingItemMap.firstKey());
+      try {
+        if (nextItem.getError() != null)
+          DiagramClassifier.addFailure(diagramClassCatalog, nextItem.getDiagramName(), nextItem.getError());
+        else if (nextItem.isDuplicate())
+          diagramClassCatalog.addMemberByContentHash(nextItem.getContentHash(), nextItem.getDiagramName());
+        else {
+          int graphClassIndex = diagramClassCatalog.addMember(nextItem.getGraphClass(), 
+            nextItem.getDiagramClassCalculator().getGraphClassCertificate(), nextItem.getDiagramName());
+          if (nextItem.getContentHash() != null)
+            diagramClassCatalog.putContentHash(nextItem.getContentHash(), graphClassIndex);
+        }
+      } finally {
+        nextItemIndex++;
+        inFlightPermits.release();
+      }
+    }
+  }
+
+  /**
+   * Prints the statistics of the pipeline stages.
+   * @param out - the output stream
+   */
+  public void printStatistics(PrintStream out) {
+    out.println("Stage\tThreads\tDiagrams\tBusy time (ms)\tQueue size\tMax queue depth\tAverage queue depth");
+    for (PipelineStage stage : stageList)
+      stage.printStatistics(out);
+  }
+
+}
\ No newline at end of file
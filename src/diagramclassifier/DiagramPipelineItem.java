@@ -0,0 +1,176 @@
+package diagramclassifier;
+
+import java.util.*;
+import fi.tkk.ics.jbliss.Graph;
+
+/**
+ * This class represents a class diagram passing through the stages of 
+ * DiagramPipeline. Each stage fills in the results it produces.
+ * @author Alexey Tazin 
+ */
+public class DiagramPipelineItem {
+
+  /**
+   * The item marking the end of the input of a pipeline stage.
+   */
+  public static final DiagramPipelineItem END = new DiagramPipelineItem(-1, null);
+
+  // The index of the class diagram in the input
+  private int index;
+
+  // The class diagram name
+  private String diagramName;
+
+  // The contents of the XMI file
+  private byte[] xmiBytes;
+
+  // The ArgoUML model
+  private Object model;
+
+  // The class diagram E-graph
+  private DiagramGraph diagramGraph;
+
+  // The calculator of the class of the class diagram
+  private DiagramClassCalculator diagramClassCalculator = new DiagramClassCalculator();
+
+  // False if XmiPrescanner found an element the basic templates do not 
+  // support, so the class diagram is not parsed
+  private boolean coverable = true;
+
+  // The content hash of the XMI file calculated by XmiContentHash; null if 
+  // it is not calculated
+  private String contentHash;
+
+  // True if a class diagram with the same content hash has been registered, 
+  // so the class diagram is not parsed
+  private boolean duplicate = false;
+
+  // True if the class diagram is covered by copies of the basic templates
+  private boolean covered = false;
+
+  // The complex template E-graph
+  private DiagramGraph complexPatternGraph;
+
+  // The graph of the complex template diagram representing the class
+  private Graph<Integer> graphClass;
+
+  // The time budget of the class diagram; null if there is no limit
+  private DiagramDeadline deadline;
+
+  // The error that stopped processing the class diagram
+  private Throwable error;
+
+  public DiagramPipelineItem(int index, String diagramName) {
+    this.index = index;
+    this.diagramName = diagramName;
+  }
+
+  public int getIndex() {
+    return index;
+  }
+
+  public String getDiagramName() {
+    return diagramName;
+  }
+
+  public byte[] getXmiBytes() {
+    return xmiBytes;
+  }
+
+  public void setXmiBytes(byte[] xmiBytes) {
+    this.xmiBytes = xmiBytes;
+  }
+
+  public Object getModel() {
+    return model;
+  }
+
+  public void setModel(Object model) {
+    this.model = model;
+  }
+
+  public DiagramGraph getDiagramGraph() {
+    return diagramGraph;
+  }
+
+  public void setDiagramGraph(DiagramGraph diagramGraph) {
+    this.diagramGraph = diagramGraph;
+  }
+
+  public DiagramClassCalculator getDiagramClassCalculator() {
+    return diagramClassCalculator;
+  }
+
+  public boolean isCoverable() {
+    return coverable;
+  }
+
+  public void setCoverable(boolean coverable) {
+    this.coverable = coverable;
+  }
+
+  public String getContentHash() {
+    return contentHash;
+  }
+
+  public void setContentHash(String contentHash) {
+    this.contentHash = contentHash;
+  }
+
+  public boolean isDuplicate() {
+    return duplicate;
+  }
+
+  public void setDuplicate(boolean duplicate) {
+    this.duplicate = duplicate;
+  }
+
+  /**
+   * Returns true if the E-graph of the class diagram is to be built and 
+   * classified.
+   */
+  public boolean isClassified() {
+    return coverable && !duplicate;
+  }
+
+  public boolean isCovered() {
+    return covered;
+  }
+
+  public void setCovered(boolean covered) {
+    this.covered = covered;
+  }
+
+  public DiagramGraph getComplexPatternGraph() {
+    return complexPatternGraph;
+  }
+
+  public void setComplexPatternGraph(DiagramGraph complexPatternGraph) {
+    this.complexPatternGraph = complexPatternGraph;
+  }
+
+  public Graph<Integer> getGraphClass() {
+    return graphClass;
+  }
+
+  public void setGraphClass(Graph<Integer> graphClass) {
+    this.graphClass = graphClass;
+  }
+
+  public DiagramDeadline getDeadline() {
+    return deadline;
+  }
+
+  public void setDeadline(DiagramDeadline deadline) {
+    this.deadline = deadline;
+  }
+
+  public Throwable getError() {
+    return error;
+  }
+
+  public void setError(Throwable error) {
+    this.error = error;
+  }
+
+}
\ No newline at end of file
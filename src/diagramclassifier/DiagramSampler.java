@@ -0,0 +1,262 @@
+package diagramclassifier;
+
+import java.io.*;
+import java.nio.file.*;
+import java.util.*;
+import org.argouml.model.*;
+
+/**
+ * This class estimates the distribution of the classes of the input from a
+ * random sample of its class diagrams. The input is split into strata of
+ * about the same number of files by file size, a single stratum being a
+ * uniform sample. The diagrams are drawn without replacement from the
+ * strata in proportion to their sizes, so any prefix of the sample is a
+ * proportional stratified sample. The share of each class is estimated by
+ * the stratified estimator. Its confidence interval combines the Wilson
+ * intervals of the strata, which unlike the normal interval do not
+ * collapse for a class seldom or never seen in a stratum. Sampling
+ * stops when the intervals of all the classes found are narrower than the
+ * given precision or the sample reaches its maximum size.
+ * @author Alexey Tazin
+ */
+public class DiagramSampler {
+
+  // The number of diagrams sampled before the intervals are first checked
+  private static final int MIN_SAMPLE_SIZE = 100;
+
+  // The number of diagrams sampled between checks of the intervals
+  private static final int CHECK_INTERVAL = 50;
+
+  // The ArgoUML model implemetation
+  private ModelImplementation modelImpl;
+
+  // The classifier options
+  private DiagramClassifierOptions options;
+
+  // The diagrams of each stratum in the sampling order
+  private ArrayList<ArrayList<String>> strataList = new ArrayList<ArrayList<String>>();
+
+  // The stratum of each diagram
+  private HashMap<String, Integer> stratumMap = new HashMap<String, Integer>();
+
+  // The number of diagrams drawn from each stratum, which may be read 
+  // ahead of the classified ones
+  private int[] drawnNums;
+
+  // The number of sampled diagrams of each stratum
+  private int[] sampledNums;
+
+  // The number of sampled diagrams of each stratum in each class; the
+  // failed diagrams are counted under -1
+  private HashMap<Integer, int[]> classSampledNumsMap = new HashMap<Integer, int[]>();
+
+  private DiagramClassCatalog diagramClassCatalog = new DiagramClassCatalog();
+
+  // The total number of diagrams in the input
+  private int diagramsNum = 0;
+
+  // The normal quantile of the confidence level
+  private double z;
+
+  public DiagramSampler(ModelImplementation modelImpl, DiagramClassifierOptions options) {
+    this.modelImpl = modelImpl;
+    this.options = options;
+    this.z = getNormalQuantile((1 + options.getConfidence()) / 2);
+  }
+
+  public DiagramClassCatalog getDiagramClassCatalog() {
+    return diagramClassCatalog;
+  }
+
+  /**
+   * Samples the input and classifies the sampled diagrams.
+   */
+  public void run() throws Exception {
+    createStrata();
+    drawnNums = new int[strataList.size()];
+    sampledNums = new int[strataList.size()];
+    XmiPrefetcher xmiPrefetcher = new XmiPrefetcher(new Iterator<String>() {
+      private int drawnNum = 0;
+      public boolean hasNext() {
+        return drawnNum < options.getSampleSize() && getNextStratum() >= 0;
+      }
+      public String next() {
+        int stratum = getNextStratum();
+        drawnNum++;
+        return strataList.get(stratum).get(drawnNums[stratum]++);
+      }
+    }, options.getPrefetchNum(), options.isScanParser());
+    try {
+      int sampleSize = 0;
+      while (xmiPrefetcher.hasNext()) {
+        XmiPrefetcher.XmiFile xmiFile = xmiPrefetcher.next();
+        int graphClassIndex = DiagramClassifier.classifyDiagram(modelImpl, options, diagramClassCatalog, xmiFile);
+        int[] classSampledNums = classSampledNumsMap.get(graphClassIndex);
+        if (classSampledNums == null) {
+          classSampledNums = new int[strataList.size()];
+          classSampledNumsMap.put(graphClassIndex, classSampledNums);
+        }
+        int stratum = stratumMap.get(xmiFile.getFileName());
+        classSampledNums[stratum]++;
+        sampledNums[stratum]++;
+        sampleSize++;
+        if (sampleSize >= MIN_SAMPLE_SIZE && sampleSize % CHECK_INTERVAL == 0 &&
+            getMaxHalfWidth() <= options.getPrecision())
+          break;
+      }
+    } finally {
+      xmiPrefetcher.close();
+    }
+  }
+
+  /**
+   * Enumerates the input, splits it into strata by file size and shuffles
+   * each stratum. The size of a bundle entry is the length of its XMI
+   * contents.
+   */
+  private void createStrata() throws IOException {
+    ArrayList<String> diagramFileNameList = new ArrayList<String>();
+    DiagramInputSource diagramInputSource = DiagramClassifier.openDiagramInputSource(options);
+    try {
+      while (diagramInputSource.hasNext())
+        diagramFileNameList.add(diagramInputSource.next());
+    } finally {
+      diagramInputSource.close();
+    }
+    diagramsNum = diagramFileNameList.size();
+
+    int strataNum = Math.max(Math.min(options.getStrataNum(), diagramsNum), 1);
+    if (strataNum > 1) {
+      final HashMap<String, Long> fileSizeMap = new HashMap<String, Long>();
+      for (String diagramFileName : diagramFileNameList)
+        fileSizeMap.put(diagramFileName, XmiBundle.isBundleEntry(diagramFileName) 
+                                         ? (long) XmiBundle.getBundleEntryLength(diagramFileName) 
+                                         : Files.size(Paths.get(diagramFileName)));
+      Collections.sort(diagramFileNameList, new Comparator<String>() {
+        public int compare(String fileName1, String fileName2) {
+          return fileSizeMap.get(fileName1).compareTo(fileSizeMap.get(fileName2));
+        }
+      });
+    }
+    Random random = new Random(options.getSeed());
+    for (int i = 0; i < strataNum; i++) {
+      ArrayList<String> stratum = new ArrayList<String>(
+        diagramFileNameList.subList((int) ((long) diagramsNum * i / strataNum), (int) ((long) diagramsNum * (i + 1) / strataNum)));
+      Collections.shuffle(stratum, random);
+      for (String diagramFileName : stratum)
+        stratumMap.put(diagramFileName, i);
+      strataList.add(stratum);
+    }
+  }
+
+  /**
+   * Returns the stratum to draw the next diagram from: the one furthest
+   * behind its share of the sample.
+   * @return the index of the stratum; -1 if all the strata are exhausted
+   */
+  private int getNextStratum() {
+    int drawnNum = 0;
+    for (int i = 0; i < drawnNums.length; i++)
+      drawnNum += drawnNums[i];
+    int nextStratum = -1;
+    double maxDeficit = Double.NEGATIVE_INFINITY;
+    for (int i = 0; i < strataList.size(); i++) {
+      int stratumSize = strataList.get(i).size();
+      if (drawnNums[i] >= stratumSize)
+        continue;
+      double deficit = (double) stratumSize * (drawnNum + 1) / diagramsNum - drawnNums[i];
+      if (deficit > maxDeficit) {
+        maxDeficit = deficit;
+        nextStratum = i;
+      }
+    }
+    return nextStratum;
+  }
+
+  /**
+   * Returns the estimated share of the given class and the bounds of its
+   * confidence interval. The distances from the share of each stratum to
+   * the bounds of its Wilson interval, with the finite population
+   * correction, are combined by the weights of the strata as the standard
+   * errors of the normal interval would be, so the interval always holds
+   * the estimated share.
+   * @param classSampledNums - the number of sampled diagrams of each
+   *        stratum in the class
+   * @return the estimated share, the lower bound and the upper bound
+   */
+  private double[] estimate(int[] classSampledNums) {
+    double share = 0;
+    double lowerVariance = 0;
+    double upperVariance = 0;
+    for (int i = 0; i < strataList.size(); i++) {
+      int stratumSize = strataList.get(i).size();
+      int sampledNum = sampledNums[i];
+      if (sampledNum == 0)
+        continue;
+      double weight = (double) stratumSize / diagramsNum;
+      double stratumShare = (double) classSampledNums[i] / sampledNum;
+      share += weight * stratumShare;
+      double center = (stratumShare + z * z / (2 * sampledNum)) / (1 + z * z / sampledNum);
+      double halfWidth = z / (1 + z * z / sampledNum) *
+                         Math.sqrt(stratumShare * (1 - stratumShare) / sampledNum + z * z / (4.0 * sampledNum * sampledNum));
+      double correction = 1 - (double) sampledNum / stratumSize;
+      double lowerDistance = stratumShare - (center - halfWidth);
+      double upperDistance = center + halfWidth - stratumShare;
+      lowerVariance += weight * weight * lowerDistance * lowerDistance * correction;
+      upperVariance += weight * weight * upperDistance * upperDistance * correction;
+    }
+    return new double[] {share, Math.max(share - Math.sqrt(lowerVariance), 0), 
+                         Math.min(share + Math.sqrt(upperVariance), 1)};
+  }
+
+  private double getMaxHalfWidth() {
+    double maxHalfWidth = 0;
+    for (int[] classSampledNums : classSampledNumsMap.values()) {
+      double[] estimate = estimate(classSampledNums);
+      maxHalfWidth = Math.max(maxHalfWidth, (estimate[2] - estimate[1]) / 2);
+    }
+    return maxHalfWidth;
+  }
+
+  /**
+   * Prints the estimated shares and numbers of members of the classes
+   * found in the sample.
+   * @param out - the output stream
+   */
+  public void print(PrintStream out) {
+    out.println("Class number\tEstimated share\tLower bound\tUpper bound\tEstimated members\tSampled members\tMember diagram");
+    for (int i = -1; i < diagramClassCatalog.size(); i++) {
+      int[] classSampledNums = classSampledNumsMap.get(i);
+      if (classSampledNums == null)
+        continue;
+      double[] estimate = estimate(classSampledNums);
+      int sampledMembersNum = 0;
+      for (int sampledNum : classSampledNums)
+        sampledMembersNum += sampledNum;
+      out.println((i == -1 ? "Failed" : String.valueOf(i)) + "\t" +
+                  String.format("%.4f\t%.4f\t%.4f\t%d", estimate[0], estimate[1], estimate[2], 
+                                Math.round(estimate[0] * diagramsNum)) +
+                  "\t" + sampledMembersNum + "\t" + (i == -1 ? "" : diagramClassCatalog.getGraphClassMemberNameList().get(i)));
+    }
+    int sampleSize = 0;
+    for (int sampledNum : sampledNums)
+      sampleSize += sampledNum;
+    out.println("Sampled diagrams: " + sampleSize + " of " + diagramsNum + " in " + strataList.size() + " strata");
+    out.println("Confidence level: " + options.getConfidence() + ", largest interval half-width: " +
+                String.format("%.4f", getMaxHalfWidth()));
+    out.println("Number of diagram classes found: " + diagramClassCatalog.size());
+  }
+
+  /**
+   * Returns the quantile of the standard normal distribution by the
+   * rational approximation 26.2.23 of Abramowitz and Stegun.
+   * @param p - the probability from 0.5 to 1
+   * @return the quantile
+   */
+  public static double getNormalQuantile(double p) {
+    double t = Math.sqrt(-2 * Math.log(1 - p));
+    return t - (2.515517 + 0.802853 * t + 0.010328 * t * t) /
+               (1 + 1.432788 * t + 0.189269 * t * t + 0.001308 * t * t * t);
+  }
+
+}
\ No newline at end of file
@@ -0,0 +1,16 @@
+package diagramclassifier;
+
+/**
+ * This exception is thrown when the time budget of classifying a class 
+ * diagram is spent or the classification is cancelled.
+ * @author Alexey Tazin 
+ */
+public class DiagramTimeoutException extends RuntimeException {
+
+  private static final long serialVersionUID = 1L;
+
+  public DiagramTimeoutException(String message) {
+    super(message);
+  }
+
+}
\ No newline at end of file
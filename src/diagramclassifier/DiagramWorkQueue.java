@@ -0,0 +1,298 @@
+package diagramclassifier;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.nio.file.attribute.FileTime;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.argouml.model.*;
+
+/**
+ * This class lets any number of worker processes share the classification
+ * of the input through a directory on a shared file system. The directory
+ * has the following layout.
+ * <ul>
+ * <li>chunks/N - the chunks of the input, each listing the ordinals and
+ *     names of its diagrams; written by the first worker</li>
+ * <li>leases/N - the lease of chunk N holding the id of the worker
+ *     classifying it; the worker renews it by touching the file</li>
+ * <li>segments/N - the partial catalog of chunk N as described in
+ *     PartialDiagramClassCatalog; a chunk is done when it exists</li>
+ * </ul>
+ * A lease is taken by creating its file, which fails if another worker
+ * holds it. An expired lease is taken over by renaming it first, so only
+ * one worker can succeed. A worker that finds its lease taken over stops
+ * classifying the chunk. Workers may join or leave at any time; the chunks
+ * of a worker that died are classified again when their leases expire.
+ * The clocks of the workers should be synchronized with the file system. 
+ * If the worker splitting the input dies, chunks.lock has to be removed 
+ * before the run is started again.
+ * @author Alexey Tazin
+ */
+public class DiagramWorkQueue {
+
+  // The ArgoUML model implemetation
+  private ModelImplementation modelImpl;
+
+  // The classifier options
+  private DiagramClassifierOptions options;
+
+  // The id of this worker
+  private String workerId;
+
+  // The directories of the chunks, leases and segments
+  private Path chunksDir;
+  private Path leasesDir;
+  private Path segmentsDir;
+
+  // The time a lease is valid without being renewed
+  private long leaseMillis;
+
+  /**
+   * Creates a worker of the work queue in the directory given by the options.
+   * @param modelImpl - the ArgoUML model implemetation
+   *        options - the classifier options
+   */
+  public DiagramWorkQueue(ModelImplementation modelImpl, DiagramClassifierOptions options) {
+    this.modelImpl = modelImpl;
+    this.options = options;
+    this.workerId = options.getWorkerId();
+    Path workDir = Paths.get(options.getWorkDir());
+    this.chunksDir = workDir.resolve("chunks");
+    this.leasesDir = workDir.resolve("leases");
+    this.segmentsDir = workDir.resolve("segments");
+    this.leaseMillis = options.getLeaseTime() * 1000L;
+  }
+
+  /**
+   * Classifies the chunks until all of them are done and merges their
+   * segments.
+   * @return the merged class catalog
+   */
+  public DiagramClassCatalog run() throws Exception {
+    createChunks();
+    Files.createDirectories(leasesDir);
+    Files.createDirectories(segmentsDir);
+    while (true) {
+      List<String> chunkList = listFiles(chunksDir);
+      int doneChunksNum = 0;
+      boolean chunkClassified = false;
+      for (String chunk : chunkList) {
+        if (Files.exists(segmentsDir.resolve(chunk)))
+          doneChunksNum++;
+        else if (acquireLease(chunk)) {
+          classifyChunk(chunk);
+          chunkClassified = true;
+        }
+      }
+      if (doneChunksNum == chunkList.size())
+        break;
+      // The remaining chunks are leased by other workers
+      if (!chunkClassified)
+        Thread.sleep(Math.min(leaseMillis / 4, 10000));
+    }
+    ArrayList<String> segmentFileList = new ArrayList<String>();
+    for (String chunk : listFiles(chunksDir))
+      segmentFileList.add(segmentsDir.resolve(chunk).toString());
+    return PartialDiagramClassCatalog.merge(segmentFileList);
+  }
+
+  /**
+   * Splits the input into chunks unless another worker did it. The chunks
+   * are written to a temporary directory which is renamed when complete.
+   */
+  private void createChunks() throws Exception {
+    Path workDir = chunksDir.getParent();
+    Files.createDirectories(workDir);
+    try {
+      Files.createFile(workDir.resolve("chunks.lock"));
+    } catch (FileAlreadyExistsException e) {
+      while (!Files.exists(chunksDir))
+        Thread.sleep(1000);
+      return;
+    }
+    Path tmpChunksDir = workDir.resolve("chunks." + workerId + ".tmp");
+    Files.createDirectories(tmpChunksDir);
+    DiagramInputSource diagramInputSource = DiagramClassifier.openDiagramInputSource(options);
+    try {
+      long ordinal = 0;
+      int chunkIndex = 0;
+      Writer writer = null;
+      while (diagramInputSource.hasNext()) {
+        if (ordinal % options.getChunkSize() == 0) {
+          if (writer != null)
+            writer.close();
+          writer = Files.newBufferedWriter(tmpChunksDir.resolve(String.format("%08d", chunkIndex++)),
+                                           StandardCharsets.UTF_8);
+        }
+        writer.write(ordinal++ + "\t" + DiagramClassJournal.escape(diagramInputSource.next()) + "\n");
+      }
+      if (writer != null)
+        writer.close();
+    } finally {
+      diagramInputSource.close();
+    }
+    Files.move(tmpChunksDir, chunksDir, StandardCopyOption.ATOMIC_MOVE);
+  }
+
+  /**
+   * Takes the lease of the given chunk if it is free or expired.
+   * @param chunk - the chunk name
+   * @return true if the lease is taken; false otherwise
+   */
+  private boolean acquireLease(String chunk) throws IOException {
+    Path leaseFile = leasesDir.resolve(chunk);
+    try {
+      FileTime lastModifiedTime = Files.getLastModifiedTime(leaseFile);
+      if (System.currentTimeMillis() - lastModifiedTime.toMillis() < leaseMillis)
+        return false;
+      Path expiredLeaseFile = leasesDir.resolve(chunk + "." + workerId + ".expired");
+      Files.move(leaseFile, expiredLeaseFile, StandardCopyOption.ATOMIC_MOVE);
+      // Another worker may have taken over the expired lease between the 
+      // check and the move, so the moved lease may be its new one, which 
+      // is put back unless the chunk is leased again meanwhile
+      if (System.currentTimeMillis() - Files.getLastModifiedTime(expiredLeaseFile).toMillis() < leaseMillis) {
+        try {
+          Files.move(expiredLeaseFile, leaseFile);
+        } catch (FileAlreadyExistsException e) {
+          // The other worker loses the lease when renewing it
+          Files.delete(expiredLeaseFile);
+        }
+        return false;
+      }
+      Files.delete(expiredLeaseFile);
+    } catch (NoSuchFileException e) {
+      // The lease is free
+    }
+    try {
+      Files.write(leasesDir.resolve(chunk), workerId.getBytes(StandardCharsets.UTF_8), StandardOpenOption.CREATE_NEW,
+                  StandardOpenOption.WRITE);
+    } catch (FileAlreadyExistsException e) {
+      return false;
+    }
+    // The chunk may have been finished between listing and leasing
+    if (Files.exists(segmentsDir.resolve(chunk))) {
+      releaseLease(chunk);
+      return false;
+    }
+    return true;
+  }
+
+  /**
+   * Renews the lease of the given chunk.
+   * @param chunk - the chunk name
+   * @return true if the lease is still held by this worker; false otherwise
+   */
+  private boolean renewLease(String chunk) {
+    Path leaseFile = leasesDir.resolve(chunk);
+    try {
+      if (!workerId.equals(new String(Files.readAllBytes(leaseFile), StandardCharsets.UTF_8)))
+        return false;
+      Files.setLastModifiedTime(leaseFile, FileTime.fromMillis(System.currentTimeMillis()));
+      return true;
+    } catch (IOException e) {
+      return false;
+    }
+  }
+
+  private void releaseLease(String chunk) throws IOException {
+    Path leaseFile = leasesDir.resolve(chunk);
+    try {
+      if (workerId.equals(new String(Files.readAllBytes(leaseFile), StandardCharsets.UTF_8)))
+        Files.delete(leaseFile);
+    } catch (NoSuchFileException e) {
+      // The lease was taken over and released by another worker
+    }
+  }
+
+  /**
+   * Classifies the diagrams of the given chunk and writes its segment. The
+   * lease is renewed by another thread while the chunk is classified. If
+   * the lease is lost, the chunk is left to the worker that took it over.
+   * @param chunk - the chunk name
+   */
+  private void classifyChunk(final String chunk) throws Exception {
+    DiagramClassCatalog diagramClassCatalog = new DiagramClassCatalog();
+    ArrayList<String> diagramFileNameList = new ArrayList<String>();
+    for (String line : Files.readAllLines(chunksDir.resolve(chunk), StandardCharsets.UTF_8)) {
+      String[] fields = line.split("\t", 2);
+      String diagramFileName = DiagramClassJournal.unescape(fields[1]);
+      diagramFileNameList.add(diagramFileName);
+      diagramClassCatalog.getDiagramOrdinalMap().put(diagramFileName, Long.parseLong(fields[0]));
+    }
+
+    final AtomicBoolean leaseLost = new AtomicBoolean();
+    Thread renewThread = new Thread(new Runnable() {
+      public void run() {
+        try {
+          while (true) {
+            Thread.sleep(leaseMillis / 3);
+            if (!renewLease(chunk)) {
+              leaseLost.set(true);
+              return;
+            }
+          }
+        } catch (InterruptedException e) {
+          // The chunk is classified
+        }
+      }
+    }, "lease-" + chunk);
+    renewThread.setDaemon(true);
+    renewThread.start();
+
+    try {
+      XmiPrefetcher xmiPrefetcher = new XmiPrefetcher(diagramFileNameList.iterator(), options.getPrefetchNum(), 
+                                                      options.isScanParser());
+      try {
+        while (xmiPrefetcher.hasNext()) {
+          if (leaseLost.get()) {
+            System.err.println("Lost the lease of chunk " + chunk);
+            return;
+          }
+          DiagramClassifier.classifyDiagram(modelImpl, options, diagramClassCatalog, xmiPrefetcher.next());
+        }
+      } finally {
+        xmiPrefetcher.close();
+      }
+    } finally {
+      renewThread.interrupt();
+      renewThread.join();
+    }
+
+    if (!renewLease(chunk)) {
+      System.err.println("Lost the lease of chunk " + chunk);
+      return;
+    }
+    Path tmpSegmentFile = segmentsDir.resolve(chunk + "." + workerId + ".tmp");
+    PrintStream out = new PrintStream(Files.newOutputStream(tmpSegmentFile), false, "UTF-8");
+    try {
+      PartialDiagramClassCatalog.write(diagramClassCatalog, out);
+    } finally {
+      out.close();
+    }
+    Files.move(tmpSegmentFile, segmentsDir.resolve(chunk), StandardCopyOption.ATOMIC_MOVE);
+    releaseLease(chunk);
+  }
+
+  /**
+   * Returns the sorted names of the files in the given directory, without
+   * the temporary and expired files.
+   * @param dir - the directory
+   * @return the file names
+   */
+  private static List<String> listFiles(Path dir) throws IOException {
+    ArrayList<String> fileList = new ArrayList<String>();
+    DirectoryStream<Path> stream = Files.newDirectoryStream(dir);
+    try {
+      for (Path path : stream)
+        if (path.getFileName().toString().indexOf('.') < 0)
+          fileList.add(path.getFileName().toString());
+    } finally {
+      stream.close();
+    }
+    Collections.sort(fileList);
+    return fileList;
+  }
+
+}
\ No newline at end of file
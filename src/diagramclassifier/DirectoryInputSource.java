@@ -0,0 +1,154 @@
+package diagramclassifier;
+
+import java.io.*;
+import java.nio.file.*;
+import java.nio.file.attribute.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * This class represents the class diagrams stored in a directory tree. The 
+ * tree is walked lazily by a separate thread a bounded number of files 
+ * ahead of the classifier. The files are either all the class diagram files 
+ * or the files matching a glob pattern. Symbolic links are followed, and a 
+ * directory or file that cannot be read, or a link making a loop, is 
+ * reported to the standard error and skipped.
+ * @author Alexey Tazin 
+ */
+public class DirectoryInputSource implements DiagramInputSource {
+
+  // The number of file paths found ahead of the classifier
+  private static final int QUEUE_SIZE = 1024;
+
+  // The item marking the end of the walk
+  private static final Path END = Paths.get("");
+
+  // The paths found by the walking thread
+  private ArrayBlockingQueue<Path> pathQueue = new ArrayBlockingQueue<Path>(QUEUE_SIZE);
+
+  private Thread walkThread;
+
+  private Path nextPath = null;
+
+  /**
+   * Starts walking the given directory tree.
+   * @param directory - the root of the directory tree
+   *        pathMatcher - the matcher of the file paths; null if all the 
+   *        class diagram files are taken
+   * @throws NoSuchFileException if the directory does not exist
+   */
+  public DirectoryInputSource(final Path directory, final PathMatcher pathMatcher) throws IOException {
+    if (!Files.exists(directory))
+      throw new NoSuchFileException(directory.toString());
+    walkThread = new Thread(new Runnable() {
+      public void run() {
+        walk(directory, pathMatcher);
+      }
+    }, "directory-walk");
+    walkThread.setDaemon(true);
+    walkThread.start();
+  }
+
+  /**
+   * Walks the given directory tree in the walking thread and queues the 
+   * matching files. END is queued when the walk ends, even if it fails, so 
+   * the classifier does not wait for files that never come.
+   * @param directory - the root of the directory tree
+   *        pathMatcher - the matcher of the file paths; null if all the 
+   *        class diagram files are taken
+   */
+  private void walk(Path directory, final PathMatcher pathMatcher) {
+    try {
+      try {
+        Files.walkFileTree(directory, EnumSet.of(FileVisitOption.FOLLOW_LINKS), Integer.MAX_VALUE, 
+                           new SimpleFileVisitor<Path>() {
+          public FileVisitResult visitFile(Path path, BasicFileAttributes attrs) {
+            if (!attrs.isRegularFile())
+              return FileVisitResult.CONTINUE;
+            if (pathMatcher != null ? !pathMatcher.matches(path) : 
+                !DiagramInputSource.isDiagramFile(path.getFileName().toString()))
+              return FileVisitResult.CONTINUE;
+            try {
+              pathQueue.put(path);
+            } catch (InterruptedException e) {
+              Thread.currentThread().interrupt();
+              return FileVisitResult.TERMINATE;
+            }
+            return FileVisitResult.CONTINUE;
+          }
+
+          public FileVisitResult visitFileFailed(Path path, IOException e) {
+            System.err.println("Cannot read " + path + ": " + e);
+            return FileVisitResult.CONTINUE;
+          }
+
+          public FileVisitResult postVisitDirectory(Path dir, IOException e) {
+            if (e != null)
+              System.err.println("Cannot read " + dir + ": " + e);
+            return FileVisitResult.CONTINUE;
+          }
+        });
+      } catch (IOException e) {
+        System.err.println("Cannot read " + directory + ": " + e);
+      }
+      if (!Thread.currentThread().isInterrupted())
+        pathQueue.put(END);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  /**
+   * Creates an input source of the files matching the given glob pattern. 
+   * The walked directory tree is the longest leading part of the pattern 
+   * without wildcards.
+   * @param pattern - the glob pattern
+   * @return the input source
+   */
+  public static DirectoryInputSource createGlobInputSource(String pattern) throws IOException {
+    Path directory = Paths.get("");
+    Path patternPath = Paths.get(pattern);
+    for (int i = 0; i < patternPath.getNameCount() - 1; i++) {
+      String name = patternPath.getName(i).toString();
+      if (name.indexOf('*') != -1 || name.indexOf('?') != -1 || name.indexOf('[') != -1 || name.indexOf('{') != -1)
+        break;
+      directory = directory.resolve(name);
+    }
+    if (patternPath.isAbsolute())
+      directory = patternPath.getRoot().resolve(directory);
+    PathMatcher pathMatcher = FileSystems.getDefault().getPathMatcher("glob:" + pattern);
+    return new DirectoryInputSource(directory, pathMatcher);
+  }
+
+  /**
+   * Returns true if there is a next file. Blocks until the walking thread 
+   * has found it or the walk ends.
+   */
+  public boolean hasNext() {
+    if (nextPath == null) {
+      try {
+        nextPath = pathQueue.take();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        nextPath = END;
+      }
+    }
+    return nextPath != END;
+  }
+
+  public String next() {
+    if (!hasNext())
+      throw new NoSuchElementException();
+    Path path = nextPath;
+    nextPath = null;
+    return path.toString();
+  }
+
+  /**
+   * Stops the walk.
+   */
+  public void close() {
+    walkThread.interrupt();
+  }
+
+}
\ No newline at end of file
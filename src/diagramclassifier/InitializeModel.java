@@ -1,67 +1,99 @@
-package diagramclassifier;
-
-import org.argouml.model.*;
-
-/**
- * Class to initialize the model.
- *
- * @author Alexey Tazin
- */
-public final class InitializeModel {
-    
-  /**
-   * The default model implementation to start.
-   */
-  private static final String DEFAULT_MODEL_IMPLEMENTATION =
-    "org.argouml.model.mdr.MDRModelImplementation";
-
-
-  /**
-   * This is never instantiated.
-   */
-  private InitializeModel() {
-  }
-    
-
-  /**
-   * Initialize the Model subsystem with the MDR ModelImplementation.
-   */
-  public static void initializeMDR() {
-    if (Model.isInitiated())
-      return;
-    ModelImplementation impl = initializeModelImplementation(
-      "org.argouml.model.mdr.MDRModelImplementation");
-    Model.setImplementation(impl);
-  }
-
-  /**
-   * Initialize the Model subsystem with the eUML ModelImplementation.
-   */
-  public static void initializeEUML() {
-    if (Model.isInitiated())
-      return;
-     ModelImplementation impl = initializeModelImplementation(
-       "org.argouml.model.euml.EUMLModelImplementation");
-     Model.setImplementation(impl);
-  }
-
-  public static ModelImplementation initializeModelImplementation(String name) {
-    ModelImplementation impl = null;
-    Class implType;
-    try {
-      implType = Class.forName(name);
-    } catch (ClassNotFoundException e) {
-      e.printStackTrace();
-      return null;
-    }
-    try {
-      impl = (ModelImplementation) implType.newInstance();
-    } catch (InstantiationException e) {
-      e.printStackTrace();
-    } catch (IllegalAccessException e) {
-      e.printStackTrace();
-    }
-    return impl;
-  }
-
+package diagramclassifier;
+
+import org.argouml.model.*;
+
+/**
+ * Class to initialize the model.
+ *
+ * @author Alexey Tazin
+ */
+public final class InitializeModel {
+    
+  /**
+   * The default model implementation to start.
+   */
+  private static final String DEFAULT_MODEL_IMPLEMENTATION =
+    "org.argouml.model.mdr.MDRModelImplementation";
+
+  /**
+   * The eUML model implementation.
+   */
+  private static final String EUML_MODEL_IMPLEMENTATION =
+    "org.argouml.model.euml.EUMLModelImplementation";
+
+
+  /**
+   * This is never instantiated.
+   */
+  private InitializeModel() {
+  }
+    
+
+  /**
+   * Initialize the Model subsystem with the MDR ModelImplementation.
+   */
+  public static void initializeMDR() {
+    if (Model.isInitiated())
+      return;
+    ModelImplementation impl = initializeModelImplementation(
+      "org.argouml.model.mdr.MDRModelImplementation");
+    Model.setImplementation(impl);
+  }
+
+  /**
+   * Initialize the Model subsystem with the eUML ModelImplementation.
+   */
+  public static void initializeEUML() {
+    if (Model.isInitiated())
+      return;
+     ModelImplementation impl = initializeModelImplementation(
+       "org.argouml.model.euml.EUMLModelImplementation");
+     Model.setImplementation(impl);
+  }
+
+  /**
+   * Initialize the Model subsystem with the ModelImplementation of the 
+   * given backend.
+   * @param modelBackend - mdr or euml
+   * @return the model implementation; null if it cannot be created
+   */
+  public static ModelImplementation initializeModel(String modelBackend) {
+    ModelImplementation impl = initializeModelImplementation(getModelImplementationName(modelBackend));
+    if (impl != null)
+      Model.setImplementation(impl);
+    return impl;
+  }
+
+  /**
+   * Returns the class name of the ModelImplementation of the given backend.
+   * @param modelBackend - mdr or euml
+   * @return the class name of the model implementation
+   */
+  public static String getModelImplementationName(String modelBackend) {
+    if (modelBackend.equals("euml"))
+      return EUML_MODEL_IMPLEMENTATION;
+    if (modelBackend.equals("mdr"))
+      return DEFAULT_MODEL_IMPLEMENTATION;
+    throw new IllegalArgumentException("Unknown model: " + modelBackend);
+  }
+
+  public static ModelImplementation initializeModelImplementation(String name) {
+    ModelImplementation impl = null;
+    Class<?> implType;
+    try {
+      implType = Class.forName(name);
+    } catch (ClassNotFoundException e) {
+      e.printStackTrace();
+      return null;
+    }
+    try {
+      impl = (ModelImplementation) implType.newInstance();
+    } catch (InstantiationException e) {
+      e.printStackTrace();
+    } catch (IllegalAccessException e) {
+      e.printStackTrace();
+    }
+    return impl;
+  }
+
 }
\ No newline at end of file
@@ -0,0 +1,64 @@
+package diagramclassifier;
+
+import java.io.*;
+import java.util.*;
+
+/**
+ * This class represents the class diagrams listed in a stream. The paths of 
+ * the files are separated either by line breaks or by NUL characters. 
+ * Empty paths are skipped.
+ * @author Alexey Tazin 
+ */
+public class ManifestInputSource implements DiagramInputSource {
+
+  private Reader reader;
+
+  // True if the paths are separated by NUL characters
+  private boolean nulSeparated;
+
+  private String nextFileName = null;
+
+  private boolean endOfStream = false;
+
+  public ManifestInputSource(InputStream inputStream, boolean nulSeparated) throws IOException {
+    this.reader = new BufferedReader(new InputStreamReader(inputStream, "UTF-8"));
+    this.nulSeparated = nulSeparated;
+  }
+
+  public boolean hasNext() {
+    try {
+      while (nextFileName == null && !endOfStream) {
+        StringBuilder fileName = new StringBuilder();
+        while (true) {
+          int c = reader.read();
+          if (c == -1) {
+            endOfStream = true;
+            break;
+          }
+          if (nulSeparated ? c == 0 : c == '\n')
+            break;
+          fileName.append((char) c);
+        }
+        String line = nulSeparated ? fileName.toString() : fileName.toString().trim();
+        if (line.length() != 0)
+          nextFileName = line;
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    return nextFileName != null;
+  }
+
+  public String next() {
+    if (!hasNext())
+      throw new NoSuchElementException();
+    String fileName = nextFileName;
+    nextFileName = null;
+    return fileName;
+  }
+
+  public void close() throws IOException {
+    reader.close();
+  }
+
+}
\ No newline at end of file
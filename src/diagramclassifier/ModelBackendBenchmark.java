@@ -0,0 +1,130 @@
+package diagramclassifier;
+
+import java.io.*;
+import java.util.*;
+import org.argouml.model.*;
+import org.xml.sax.InputSource;
+
+/**
+ * This class compares the ArgoUML model backends on a set of class
+ * diagrams. For each backend, the diagrams are parsed and their E-graphs
+ * generated in a separate JVM, since the model subsystem is shared by the
+ * whole process. The XMI contents are read into memory first, and the
+ * diagrams are parsed once to warm up the JVM before they are measured.
+ * The heap of a diagram is the heap retained after a full garbage
+ * collection while its model is loaded.
+ * <p>
+ * java diagramclassifier.ModelBackendBenchmark [INPUT [BACKEND...]]
+ * <p>
+ * INPUT is an input source as accepted by the --input option,
+ * glob:diagrams/*.xmi by default. The backends are mdr and euml by default.
+ * @author Alexey Tazin
+ */
+public class ModelBackendBenchmark {
+
+  public static void main(String[] args) {
+    try {
+      if (args.length == 3 && args[0].equals("--run")) {
+        run(args[1], args[2]);
+        return;
+      }
+      String inputSpec = args.length > 0 ? args[0] : "glob:diagrams/*.xmi";
+      List<String> modelBackendList = args.length > 1 ? Arrays.asList(args).subList(1, args.length)
+                                                      : Arrays.asList("mdr", "euml");
+      String javaCommand = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+      System.out.println("Backend\tDiagrams\tFailed\tParse ms\tGenerate ms\tHeap KB");
+      for (String modelBackend : modelBackendList) {
+        ProcessBuilder processBuilder = new ProcessBuilder(javaCommand, "-cp", System.getProperty("java.class.path"),
+                                                           ModelBackendBenchmark.class.getName(), "--run",
+                                                           modelBackend, inputSpec);
+        processBuilder.inheritIO();
+        processBuilder.start().waitFor();
+      }
+    } catch (Exception e) {
+      e.printStackTrace();
+    }
+  }
+
+  /**
+   * Measures the given model backend on the given diagrams and prints the
+   * average parse time, E-graph generation time and heap per diagram.
+   * @param modelBackend - the ArgoUML model backend: mdr or euml
+   *        inputSpec - the input source of the diagrams
+   */
+  private static void run(String modelBackend, String inputSpec) throws IOException {
+    ModelImplementation modelImpl = InitializeModel.initializeModel(modelBackend);
+    if (modelImpl == null)
+      return;
+
+    ArrayList<String> diagramFileNameList = new ArrayList<String>();
+    ArrayList<byte[]> xmiBytesList = new ArrayList<byte[]>();
+    DiagramInputSource diagramInputSource = DiagramInputSource.open(inputSpec);
+    try {
+      while (diagramInputSource.hasNext()) {
+        String diagramFileName = diagramInputSource.next();
+        diagramFileNameList.add(diagramFileName);
+        xmiBytesList.add(XmiFiles.readXmiBytes(diagramFileName));
+      }
+    } finally {
+      diagramInputSource.close();
+    }
+
+    for (int i = 0; i < xmiBytesList.size(); i++)
+      try {
+        readDiagramGraph(modelImpl, xmiBytesList.get(i));
+      } catch (Exception e) {
+        System.err.println(modelBackend + ": cannot parse " + diagramFileNameList.get(i) + ": " + e);
+      }
+
+    int diagramsNum = 0;
+    long parseNanos = 0;
+    long generateNanos = 0;
+    long heapBytes = 0;
+    for (byte[] xmiBytes : xmiBytesList) {
+      long usedHeap = getUsedHeap();
+      Object model;
+      long startTime = System.nanoTime();
+      try {
+        model = DiagramGraphGenerator.parseModel(new InputSource(new ByteArrayInputStream(xmiBytes)));
+      } catch (Exception e) {
+        continue;
+      }
+      long parseTime = System.nanoTime() - startTime;
+      try {
+        startTime = System.nanoTime();
+        DiagramGraphGenerator.generateDiagramGraph(modelImpl, model, new DiagramGraph());
+        generateNanos += System.nanoTime() - startTime;
+        parseNanos += parseTime;
+        heapBytes += Math.max(getUsedHeap() - usedHeap, 0);
+        diagramsNum++;
+      } finally {
+        DiagramGraphGenerator.deleteModel(model);
+      }
+    }
+
+    int n = Math.max(diagramsNum, 1);
+    System.out.println(modelBackend + "\t" + diagramsNum + "\t" + (xmiBytesList.size() - diagramsNum) + "\t" +
+                       String.format(Locale.ROOT, "%.2f\t%.2f\t%d", parseNanos / 1e6 / n, generateNanos / 1e6 / n,
+                                     heapBytes / n >> 10));
+  }
+
+  private static void readDiagramGraph(ModelImplementation modelImpl, byte[] xmiBytes) throws Exception {
+    Object model = DiagramGraphGenerator.parseModel(new InputSource(new ByteArrayInputStream(xmiBytes)));
+    try {
+      DiagramGraphGenerator.generateDiagramGraph(modelImpl, model, new DiagramGraph());
+    } finally {
+      DiagramGraphGenerator.deleteModel(model);
+    }
+  }
+
+  /**
+   * Returns the heap used after a full garbage collection.
+   */
+  private static long getUsedHeap() {
+    Runtime runtime = Runtime.getRuntime();
+    System.gc();
+    System.gc();
+    return runtime.totalMemory() - runtime.freeMemory();
+  }
+
+}
\ No newline at end of file
@@ -0,0 +1,35 @@
+package diagramclassifier;
+
+import java.util.*;
+
+/**
+ * This class represents the class diagrams stored in the current directory 
+ * in the files diagram1.xmi, ..., diagramN.xmi.
+ * @author Alexey Tazin 
+ */
+public class NumberedInputSource implements DiagramInputSource {
+
+  // The number of class diagrams
+  private int diagramsNum;
+
+  // The number of the next class diagram
+  private int diagramNum = 1;
+
+  public NumberedInputSource(int diagramsNum) {
+    this.diagramsNum = diagramsNum;
+  }
+
+  public boolean hasNext() {
+    return diagramNum <= diagramsNum;
+  }
+
+  public String next() {
+    if (!hasNext())
+      throw new NoSuchElementException();
+    return "diagram" + diagramNum++ + ".xmi";
+  }
+
+  public void close() {
+  }
+
+}
\ No newline at end of file
@@ -0,0 +1,155 @@
+package diagramclassifier;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * This class writes the class catalog of a shard of the input and merges 
+ * the partial catalogs of all the shards. A partial catalog is a text file 
+ * with the header line and one record per line, the fields separated by 
+ * tabs:
+ *
+ *   C CERTIFICATE MEMBERS ORDINAL NAME - a class with the given number of 
+ *                                        members and its first member; - 
+ *                                        stands for the class of the 
+ *                                        diagrams not covered by the basic 
+ *                                        templates
+ *   F FAILURE ORDINAL NAME             - a diagram that could not be 
+ *                                        classified
+ *
+ * ORDINAL is the ordinal of the diagram in the whole input. The merged 
+ * catalog numbers the classes in the order of their first members, so it 
+ * is the same as the catalog of a single run over the whole input.
+ * @author Alexey Tazin 
+ */
+public final class PartialDiagramClassCatalog {
+
+  // The first line of a partial catalog
+  public static final String HEADER = "DiagramClassifier partial catalog 1";
+
+  private PartialDiagramClassCatalog() {
+  }
+
+  /**
+   * Writes the given class catalog as a partial catalog.
+   * @param diagramClassCatalog - the class catalog of the shard; the 
+   *        ordinals of the diagrams are taken from its ordinal map
+   *        out - the output stream
+   */
+  public static void write(DiagramClassCatalog diagramClassCatalog, PrintStream out) {
+    Map<String,Long> diagramOrdinalMap = diagramClassCatalog.getDiagramOrdinalMap();
+    out.println(HEADER);
+    for (int i = 0; i < diagramClassCatalog.size(); i++) {
+      String graphClassCertificate = diagramClassCatalog.getGraphClassCertificateList().get(i);
+      String diagramName = diagramClassCatalog.getGraphClassMemberNameList().get(i);
+      out.println("C\t" + (graphClassCertificate == null ? "-" : graphClassCertificate) + "\t" + 
+                  diagramClassCatalog.getGraphClassMemberFreqList().get(i) + "\t" + 
+                  getOrdinal(diagramOrdinalMap, diagramName) + "\t" + DiagramClassJournal.escape(diagramName));
+    }
+    for (int i = 0; i < diagramClassCatalog.getFailedDiagramNameList().size(); i++) {
+      String diagramName = diagramClassCatalog.getFailedDiagramNameList().get(i);
+      out.println("F\t" + diagramClassCatalog.getFailureList().get(i) + "\t" + 
+                  getOrdinal(diagramOrdinalMap, diagramName) + "\t" + DiagramClassJournal.escape(diagramName));
+    }
+    out.flush();
+  }
+
+  private static long getOrdinal(Map<String,Long> diagramOrdinalMap, String diagramName) {
+    Long ordinal = diagramOrdinalMap.get(diagramName);
+    if (ordinal == null)
+      throw new IllegalStateException("Unknown input ordinal of " + diagramName);
+    return ordinal;
+  }
+
+  /**
+   * This class represents a record of a partial catalog.
+   */
+  private static class CatalogRecord {
+
+    // The ordinal of the diagram in the whole input
+    long ordinal;
+
+    // The diagram name
+    String diagramName;
+
+    // The certificate of the class; null for the diagrams not covered
+    String graphClassCertificate;
+
+    // The number of members of the class
+    int membersNum;
+
+    // The failure of the diagram that could not be classified
+    String failure;
+
+  }
+
+  /**
+   * Merges the given partial catalogs. The classes with the same 
+   * certificate are merged into one class and their members are summed.
+   * @param partialCatalogFileList - the partial catalog files
+   * @return the merged class catalog
+   */
+  public static DiagramClassCatalog merge(List<String> partialCatalogFileList) throws IOException {
+    HashMap<String,CatalogRecord> graphClassRecordMap = new HashMap<String,CatalogRecord>();
+    ArrayList<CatalogRecord> failureRecordList = new ArrayList<CatalogRecord>();
+    for (String partialCatalogFile : partialCatalogFileList) {
+      BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(partialCatalogFile), 
+                                                                       StandardCharsets.UTF_8));
+      try {
+        String line = reader.readLine();
+        if (!HEADER.equals(line))
+          throw new IOException(partialCatalogFile + " is not a partial catalog");
+        while ((line = reader.readLine()) != null) {
+          String[] fields = line.split("\t", 5);
+          CatalogRecord record = new CatalogRecord();
+          if (fields[0].equals("C") && fields.length == 5) {
+            record.graphClassCertificate = fields[1].equals("-") ? null : fields[1];
+            record.membersNum = Integer.parseInt(fields[2]);
+            record.ordinal = Long.parseLong(fields[3]);
+            record.diagramName = DiagramClassJournal.unescape(fields[4]);
+            CatalogRecord graphClassRecord = graphClassRecordMap.get(record.graphClassCertificate);
+            if (graphClassRecord == null)
+              graphClassRecordMap.put(record.graphClassCertificate, record);
+            else {
+              graphClassRecord.membersNum += record.membersNum;
+              if (record.ordinal < graphClassRecord.ordinal) {
+                graphClassRecord.ordinal = record.ordinal;
+                graphClassRecord.diagramName = record.diagramName;
+              }
+            }
+          } else if (fields[0].equals("F") && fields.length == 4) {
+            record.failure = fields[1];
+            record.ordinal = Long.parseLong(fields[2]);
+            record.diagramName = DiagramClassJournal.unescape(fields[3]);
+            failureRecordList.add(record);
+          } else
+            throw new IOException("Corrupted record in " + partialCatalogFile + ": " + line);
+        }
+      } finally {
+        reader.close();
+      }
+    }
+
+    Comparator<CatalogRecord> ordinalComparator = new Comparator<CatalogRecord>() {
+      public int compare(CatalogRecord record1, CatalogRecord record2) {
+        return Long.compare(record1.ordinal, record2.ordinal);
+      }
+    };
+    ArrayList<CatalogRecord> graphClassRecordList = new ArrayList<CatalogRecord>(graphClassRecordMap.values());
+    Collections.sort(graphClassRecordList, ordinalComparator);
+    Collections.sort(failureRecordList, ordinalComparator);
+
+    DiagramClassCatalog diagramClassCatalog = new DiagramClassCatalog();
+    for (CatalogRecord record : graphClassRecordList) {
+      diagramClassCatalog.addMembers(null, record.graphClassCertificate, record.diagramName, record.membersNum);
+      diagramClassCatalog.getDiagramOrdinalMap().put(record.diagramName, record.ordinal);
+    }
+    for (CatalogRecord record : failureRecordList) {
+      diagramClassCatalog.addFailure(record.diagramName, record.failure);
+      diagramClassCatalog.getDiagramOrdinalMap().put(record.diagramName, record.ordinal);
+    }
+    return diagramClassCatalog;
+  }
+
+}
\ No newline at end of file
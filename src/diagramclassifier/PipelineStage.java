@@ -0,0 +1,188 @@
+package diagramclassifier;
+
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+
+/**
+ * This class represents a stage of DiagramPipeline. The stage takes class 
+ * diagrams from a bounded queue, processes them in its own threads and 
+ * passes them to the next stage. A full queue blocks the previous stage.
+ * @author Alexey Tazin 
+ */
+public class PipelineStage {
+
+  /**
+   * The processing done by a pipeline stage.
+   */
+  public interface Processor {
+    void process(DiagramPipelineItem item) throws Exception;
+  }
+
+  // The stage name
+  private String name;
+
+  // The number of threads
+  private int threadsNum;
+
+  // The queue of class diagrams to process
+  private ArrayBlockingQueue<DiagramPipelineItem> queue;
+
+  // The capacity of the queue
+  private int queueSize;
+
+  // The processing done by the stage
+  private Processor processor;
+
+  // The next stage; null if this is the last stage
+  private PipelineStage nextStage = null;
+
+  private ArrayList<Thread> threadList = new ArrayList<Thread>();
+
+  private AtomicInteger runningThreadsNum = new AtomicInteger();
+
+  // The number of processed class diagrams
+  private AtomicLong itemsNum = new AtomicLong();
+
+  // The time spent processing class diagrams in all threads
+  private AtomicLong busyNanos = new AtomicLong();
+
+  // The sum of queue depths sampled each time a class diagram is queued
+  private AtomicLong queueDepthSum = new AtomicLong();
+
+  private AtomicLong queueDepthSamplesNum = new AtomicLong();
+
+  private AtomicInteger maxQueueDepth = new AtomicInteger();
+
+  public PipelineStage(String name, int threadsNum, int queueSize, Processor processor) {
+    this.name = name;
+    this.threadsNum = Math.max(threadsNum, 1);
+    this.queueSize = Math.max(queueSize, 1);
+    this.queue = new ArrayBlockingQueue<DiagramPipelineItem>(this.queueSize);
+    this.processor = processor;
+  }
+
+  public String getName() {
+    return name;
+  }
+
+  public int getThreadsNum() {
+    return threadsNum;
+  }
+
+  public void setNextStage(PipelineStage nextStage) {
+    this.nextStage = nextStage;
+  }
+
+  /**
+   * Queues the given class diagram. Blocks while the queue is full.
+   * @param item - the class diagram
+   */
+  public void put(DiagramPipelineItem item) throws InterruptedException {
+    queue.put(item);
+    if (item != DiagramPipelineItem.END) {
+      int queueDepth = queue.size();
+      queueDepthSum.addAndGet(queueDepth);
+      queueDepthSamplesNum.incrementAndGet();
+      while (true) {
+        int currentMaxQueueDepth = maxQueueDepth.get();
+        if (queueDepth <= currentMaxQueueDepth || maxQueueDepth.compareAndSet(currentMaxQueueDepth, queueDepth))
+          break;
+      }
+    }
+  }
+
+  /**
+   * Marks the end of the input of the stage.
+   */
+  public void close() throws InterruptedException {
+    for (int i = 0; i < threadsNum; i++)
+      queue.put(DiagramPipelineItem.END);
+  }
+
+  /**
+   * Starts the threads of the stage.
+   */
+  public void start() {
+    runningThreadsNum.set(threadsNum);
+    for (int i = 0; i < threadsNum; i++) {
+      Thread thread = new Thread(new Runnable() {
+        public void run() {
+          processItems();
+        }
+      }, "pipeline-" + name + "-" + i);
+      thread.setDaemon(true);
+      threadList.add(thread);
+      thread.start();
+    }
+  }
+
+  /**
+   * Waits for the threads of the stage to finish.
+   */
+  public void join() throws InterruptedException {
+    for (Thread thread : threadList)
+      thread.join();
+  }
+
+  /**
+   * Processes the class diagrams of the queue until its end. An error of 
+   * the processor, even a StackOverflowError or an OutOfMemoryError, is 
+   * recorded on the class diagram, and the next stage is closed by the 
+   * last thread to finish whatever happens, so the pipeline always drains.
+   */
+  private void processItems() {
+    try {
+      while (true) {
+        DiagramPipelineItem item = queue.take();
+        if (item == DiagramPipelineItem.END)
+          break;
+        // The last stage sees the failed class diagrams too
+        if (item.getError() == null || nextStage == null) {
+          long startTime = System.nanoTime();
+          DiagramDeadline deadline = nextStage == null ? null : item.getDeadline();
+          if (deadline != null)
+            deadline.start();
+          try {
+            processor.process(item);
+            if (deadline != null)
+              deadline.check();
+          } catch (Throwable e) {
+            item.setError(e);
+          } finally {
+            if (deadline != null)
+              deadline.stop();
+          }
+          busyNanos.addAndGet(System.nanoTime() - startTime);
+        }
+        itemsNum.incrementAndGet();
+        if (nextStage != null)
+          nextStage.put(item);
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } finally {
+      if (runningThreadsNum.decrementAndGet() == 0 && nextStage != null)
+        try {
+          nextStage.close();
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+    }
+  }
+
+  /**
+   * Prints the statistics of the stage as a line of the table printed by 
+   * DiagramPipeline.
+   * @param out - the output stream
+   */
+  public void printStatistics(PrintStream out) {
+    long samplesNum = queueDepthSamplesNum.get();
+    double avgQueueDepth = samplesNum == 0 ? 0 : (double) queueDepthSum.get() / samplesNum;
+    out.println(name + "\t" + threadsNum + "\t" + itemsNum.get() + "\t" + 
+                busyNanos.get() / 1000000 + "\t" + queueSize + "\t" + maxQueueDepth.get() + "\t" + 
+                String.format("%.2f", avgQueueDepth));
+  }
+
+}
\ No newline at end of file
@@ -0,0 +1,67 @@
+package diagramclassifier;
+
+import java.io.*;
+import java.util.*;
+
+/**
+ * This class represents a shard of an input source: the class diagrams 
+ * whose ordinal in the input modulo the number of shards is the shard 
+ * index. Every shard enumerates the whole input, so the partition is the 
+ * same on every node as long as the input is enumerated in the same order. 
+ * The ordinals of the diagrams of the shard are kept so that the partial 
+ * catalogs can be merged in the input order.
+ * @author Alexey Tazin 
+ */
+public class ShardInputSource implements DiagramInputSource {
+
+  // The underlying input source
+  private DiagramInputSource diagramInputSource;
+
+  // The index of the shard from 0 to shardsNum - 1
+  private int shardIndex;
+
+  // The number of shards
+  private int shardsNum;
+
+  // The ordinals of the class diagrams of the shard in the input
+  private Map<String,Long> diagramOrdinalMap;
+
+  // The ordinal of the next class diagram of the underlying source
+  private long ordinal = 0;
+
+  // The next class diagram of the shard; null if not looked up yet
+  private String nextDiagramName = null;
+
+  public ShardInputSource(DiagramInputSource diagramInputSource, int shardIndex, int shardsNum, 
+                          Map<String,Long> diagramOrdinalMap) {
+    this.diagramInputSource = diagramInputSource;
+    this.shardIndex = shardIndex;
+    this.shardsNum = shardsNum;
+    this.diagramOrdinalMap = diagramOrdinalMap;
+  }
+
+  public boolean hasNext() {
+    while (nextDiagramName == null && diagramInputSource.hasNext()) {
+      String diagramName = diagramInputSource.next();
+      if (ordinal % shardsNum == shardIndex) {
+        nextDiagramName = diagramName;
+        diagramOrdinalMap.put(diagramName, ordinal);
+      }
+      ordinal++;
+    }
+    return nextDiagramName != null;
+  }
+
+  public String next() {
+    if (!hasNext())
+      throw new NoSuchElementException();
+    String diagramName = nextDiagramName;
+    nextDiagramName = null;
+    return diagramName;
+  }
+
+  public void close() throws IOException {
+    diagramInputSource.close();
+  }
+
+}
\ No newline at end of file
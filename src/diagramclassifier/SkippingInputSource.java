@@ -0,0 +1,48 @@
+package diagramclassifier;
+
+import java.io.*;
+import java.util.*;
+
+/**
+ * This class represents an input source without the given class diagrams, 
+ * for example the diagrams already classified by an interrupted run.
+ * @author Alexey Tazin 
+ */
+public class SkippingInputSource implements DiagramInputSource {
+
+  // The underlying input source
+  private DiagramInputSource diagramInputSource;
+
+  // The names of the skipped class diagrams
+  private Set<String> skippedDiagramNameSet;
+
+  // The next class diagram; null if not looked up yet
+  private String nextDiagramName = null;
+
+  public SkippingInputSource(DiagramInputSource diagramInputSource, Set<String> skippedDiagramNameSet) {
+    this.diagramInputSource = diagramInputSource;
+    this.skippedDiagramNameSet = skippedDiagramNameSet;
+  }
+
+  public boolean hasNext() {
+    while (nextDiagramName == null && diagramInputSource.hasNext()) {
+      String diagramName = diagramInputSource.next();
+      if (!skippedDiagramNameSet.contains(diagramName))
+        nextDiagramName = diagramName;
+    }
+    return nextDiagramName != null;
+  }
+
+  public String next() {
+    if (!hasNext())
+      throw new NoSuchElementException();
+    String diagramName = nextDiagramName;
+    nextDiagramName = null;
+    return diagramName;
+  }
+
+  public void close() throws IOException {
+    diagramInputSource.close();
+  }
+
+}
\ No newline at end of file
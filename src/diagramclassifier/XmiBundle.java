@@ -0,0 +1,357 @@
+package diagramclassifier;
+
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.*;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * This class represents a bundle of XMI files stored in a single .xmib
+ * file, so that a corpus of many small diagrams is read without opening
+ * a file per diagram. A bundle starts with the magic bytes XMIB and the
+ * format version, followed by the entries and the index:
+ *
+ *   ENTRY... INDEX INDEX_OFFSET
+ *
+ * An ENTRY is the entry name, the length of the XMI contents and the
+ * contents themselves, so the entries can be read one after another
+ * without the index. The INDEX is the number of the entries followed by
+ * the name, the offset and the length of the contents of each entry, and
+ * INDEX_OFFSET is the offset of the index. The names are written as by
+ * DataOutput.writeUTF, the lengths as ints and the offsets as longs.
+ * <p>
+ * The bundle is memory-mapped, and the contents of an entry are a slice
+ * of the mapping, so an entry is found by its name and parsed without
+ * being copied. An entry is named by the classifier as BUNDLE!ENTRY, for
+ * example corpus.xmib!diagram1.xmi, and such names are accepted wherever
+ * an XMI file name is.
+ * @author Alexey Tazin
+ */
+public class XmiBundle {
+
+  // The magic bytes at the start of a bundle
+  public static final byte[] MAGIC = {'X', 'M', 'I', 'B'};
+
+  // The version of the bundle format
+  public static final int VERSION = 1;
+
+  // The separator of the bundle file name and the entry name
+  public static final String ENTRY_SEPARATOR = "!";
+
+  // The bundles opened so far by their file names
+  private static final ConcurrentHashMap<String, XmiBundle> bundleMap = new ConcurrentHashMap<String, XmiBundle>();
+
+  private String fileName;
+
+  // The channel of a bundle mapped entry by entry; null if the whole
+  // bundle is mapped
+  private FileChannel channel = null;
+
+  // The mapped bundle; null if it is too large to be mapped at once
+  private ByteBuffer buffer = null;
+
+  // The names of the entries in the bundle order
+  private ArrayList<String> entryNameList = new ArrayList<String>();
+
+  // The offsets and the lengths of the XMI contents of the entries
+  private long[] entryOffsets;
+  private int[] entryLengths;
+
+  // The indices of the entries by their names
+  private HashMap<String, Integer> entryIndexMap = new HashMap<String, Integer>();
+
+  /**
+   * Opens the given bundle and reads its index.
+   * @param fileName - the bundle file name
+   * @throws IOException if the file is not a bundle of a known version
+   */
+  public XmiBundle(String fileName) throws IOException {
+    this.fileName = fileName;
+    FileChannel channel = FileChannel.open(Paths.get(fileName), StandardOpenOption.READ);
+    try {
+      long size = channel.size();
+      ByteBuffer headerBuffer = readFully(channel, 0, MAGIC.length + 4);
+      byte[] magic = new byte[MAGIC.length];
+      headerBuffer.get(magic);
+      if (!Arrays.equals(magic, MAGIC))
+        throw new IOException(fileName + " is not an XMI bundle");
+      int version = headerBuffer.getInt();
+      if (version != VERSION)
+        throw new IOException("Unsupported version " + version + " of " + fileName);
+
+      long indexOffset = readFully(channel, size - 8, 8).getLong();
+      if (indexOffset < MAGIC.length + 4 || indexOffset > size - 8)
+        throw new IOException(fileName + " has no valid index");
+      ByteBuffer indexBuffer = readFully(channel, indexOffset, (int) (size - 8 - indexOffset));
+      DataInputStream indexStream =
+        new DataInputStream(new ByteArrayInputStream(indexBuffer.array(), 0, indexBuffer.limit()));
+      int entriesNum = indexStream.readInt();
+      entryOffsets = new long[entriesNum];
+      entryLengths = new int[entriesNum];
+      for (int i = 0; i < entriesNum; i++) {
+        String entryName = indexStream.readUTF();
+        entryNameList.add(entryName);
+        entryIndexMap.put(entryName, i);
+        entryOffsets[i] = indexStream.readLong();
+        entryLengths[i] = indexStream.readInt();
+      }
+
+      if (size <= Integer.MAX_VALUE)
+        buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+      else {
+        this.channel = channel;
+        return;
+      }
+    } catch (IOException e) {
+      channel.close();
+      throw e;
+    }
+    channel.close();
+  }
+
+  private static ByteBuffer readFully(FileChannel channel, long offset, int length) throws IOException {
+    ByteBuffer buffer = ByteBuffer.allocate(length);
+    while (buffer.hasRemaining())
+      if (channel.read(buffer, offset + buffer.position()) < 0)
+        throw new EOFException();
+    buffer.flip();
+    return buffer;
+  }
+
+  /**
+   * Returns the bundle with the given file name, opened once per process.
+   * @param fileName - the bundle file name
+   * @return the bundle
+   */
+  public static XmiBundle open(String fileName) throws IOException {
+    XmiBundle xmiBundle = bundleMap.get(fileName);
+    if (xmiBundle == null) {
+      xmiBundle = new XmiBundle(fileName);
+      XmiBundle otherXmiBundle = bundleMap.putIfAbsent(fileName, xmiBundle);
+      if (otherXmiBundle != null) {
+        xmiBundle.close();
+        xmiBundle = otherXmiBundle;
+      }
+    }
+    return xmiBundle;
+  }
+
+  public String getFileName() {
+    return fileName;
+  }
+
+  public int size() {
+    return entryNameList.size();
+  }
+
+  public String getEntryName(int entryIndex) {
+    return entryNameList.get(entryIndex);
+  }
+
+  /**
+   * Returns the XMI contents of the given entry.
+   * @param entryIndex - the index of the entry
+   * @return the mapped XMI contents
+   */
+  public ByteBuffer getEntry(int entryIndex) throws IOException {
+    if (buffer == null)
+      return channel.map(FileChannel.MapMode.READ_ONLY, entryOffsets[entryIndex], entryLengths[entryIndex]);
+    ByteBuffer entryBuffer = buffer.duplicate();
+    entryBuffer.position((int) entryOffsets[entryIndex]);
+    entryBuffer.limit((int) entryOffsets[entryIndex] + entryLengths[entryIndex]);
+    return entryBuffer.slice();
+  }
+
+  /**
+   * Returns the XMI contents of the given entry.
+   * @param entryName - the entry name
+   * @return the mapped XMI contents
+   * @throws FileNotFoundException if the bundle has no such entry
+   */
+  public ByteBuffer getEntry(String entryName) throws IOException {
+    return getEntry(getEntryIndex(entryName));
+  }
+
+  /**
+   * Returns the length of the XMI contents of the given entry.
+   * @param entryName - the entry name
+   * @return the length in bytes
+   * @throws FileNotFoundException if the bundle has no such entry
+   */
+  public int getEntryLength(String entryName) throws IOException {
+    return entryLengths[getEntryIndex(entryName)];
+  }
+
+  private int getEntryIndex(String entryName) throws IOException {
+    Integer entryIndex = entryIndexMap.get(entryName);
+    if (entryIndex == null)
+      throw new FileNotFoundException(fileName + " has no entry " + entryName);
+    return entryIndex;
+  }
+
+  public void close() throws IOException {
+    if (channel != null)
+      channel.close();
+  }
+
+  /**
+   * Returns true if the given name is the name of a bundle entry.
+   * @param fileName - the XMI file name
+   * @return true if the name is BUNDLE!ENTRY; false otherwise
+   */
+  public static boolean isBundleEntry(String fileName) {
+    return fileName.toLowerCase().indexOf(".xmib" + ENTRY_SEPARATOR) >= 0;
+  }
+
+  /**
+   * Returns the XMI contents of the bundle entry with the given name.
+   * @param fileName - the bundle entry name, BUNDLE!ENTRY
+   * @return the mapped XMI contents
+   */
+  public static ByteBuffer mapBundleEntry(String fileName) throws IOException {
+    int separatorIndex = fileName.toLowerCase().indexOf(".xmib" + ENTRY_SEPARATOR) + 5;
+    return open(fileName.substring(0, separatorIndex)).getEntry(fileName.substring(separatorIndex + 1));
+  }
+
+  /**
+   * Returns the length of the XMI contents of the bundle entry with the 
+   * given name.
+   * @param fileName - the bundle entry name, BUNDLE!ENTRY
+   * @return the length in bytes
+   */
+  public static int getBundleEntryLength(String fileName) throws IOException {
+    int separatorIndex = fileName.toLowerCase().indexOf(".xmib" + ENTRY_SEPARATOR) + 5;
+    return open(fileName.substring(0, separatorIndex)).getEntryLength(fileName.substring(separatorIndex + 1));
+  }
+
+  /**
+   * Opens the entries of the given bundle as an input source. The names
+   * of the entries are BUNDLE!ENTRY.
+   * @param fileName - the bundle file name
+   * @return the input source
+   */
+  public static DiagramInputSource openInputSource(String fileName) throws IOException {
+    final XmiBundle xmiBundle = open(fileName);
+    return new DiagramInputSource() {
+      private int entryIndex = 0;
+
+      public boolean hasNext() {
+        return entryIndex < xmiBundle.size();
+      }
+
+      public String next() {
+        if (!hasNext())
+          throw new NoSuchElementException();
+        return xmiBundle.getFileName() + ENTRY_SEPARATOR + xmiBundle.getEntryName(entryIndex++);
+      }
+
+      public void close() {
+      }
+    };
+  }
+
+  /**
+   * This class writes a bundle of XMI files. The bundle is written to a 
+   * temporary file next to it, FILE.tmp, which replaces the bundle file 
+   * only when finish writes the index, so a bundling that fails does not 
+   * leave a bundle without some of its entries behind.
+   */
+  public static class Writer implements Closeable {
+
+    private DataOutputStream outputStream;
+
+    // The bundle file and the temporary file it is written to
+    private Path file;
+    private Path tmpFile;
+
+    // True if the index is written and the bundle is in place
+    private boolean finished = false;
+
+    // The offset of the next byte written
+    private long offset;
+
+    private ArrayList<String> entryNameList = new ArrayList<String>();
+    private ArrayList<Long> entryOffsetList = new ArrayList<Long>();
+    private ArrayList<Integer> entryLengthList = new ArrayList<Integer>();
+
+    /**
+     * Creates the temporary file of the given bundle and writes its header.
+     * @param fileName - the bundle file name
+     */
+    public Writer(String fileName) throws IOException {
+      file = Paths.get(fileName);
+      tmpFile = Paths.get(fileName + ".tmp");
+      outputStream = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmpFile), 1 << 16));
+      outputStream.write(MAGIC);
+      outputStream.writeInt(VERSION);
+      offset = MAGIC.length + 4;
+    }
+
+    /**
+     * Adds an entry to the bundle.
+     * @param entryName - the entry name
+     *        xmiBytes - the XMI contents
+     */
+    public void add(String entryName, byte[] xmiBytes) throws IOException {
+      writeUTF(entryName);
+      outputStream.writeInt(xmiBytes.length);
+      offset += 4;
+      entryNameList.add(entryName);
+      entryOffsetList.add(offset);
+      entryLengthList.add(xmiBytes.length);
+      outputStream.write(xmiBytes);
+      offset += xmiBytes.length;
+    }
+
+    /**
+     * Writes the index, closes the bundle and moves it in place of the 
+     * bundle file.
+     */
+    public void finish() throws IOException {
+      long indexOffset = offset;
+      outputStream.writeInt(entryNameList.size());
+      for (int i = 0; i < entryNameList.size(); i++) {
+        outputStream.writeUTF(entryNameList.get(i));
+        outputStream.writeLong(entryOffsetList.get(i));
+        outputStream.writeInt(entryLengthList.get(i));
+      }
+      outputStream.writeLong(indexOffset);
+      outputStream.close();
+      try {
+        Files.move(tmpFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+      } catch (AtomicMoveNotSupportedException e) {
+        Files.move(tmpFile, file, StandardCopyOption.REPLACE_EXISTING);
+      }
+      finished = true;
+    }
+
+    /**
+     * Closes the bundle. If finish was not called, the temporary file is 
+     * deleted and the bundle file is left as it was.
+     */
+    public void close() throws IOException {
+      if (finished)
+        return;
+      try {
+        outputStream.close();
+      } finally {
+        Files.deleteIfExists(tmpFile);
+      }
+    }
+
+    /**
+     * Writes the given string as by DataOutput.writeUTF and counts its
+     * bytes, since the count of DataOutputStream overflows at 2 GB.
+     */
+    private void writeUTF(String string) throws IOException {
+      ByteArrayOutputStream stringStream = new ByteArrayOutputStream();
+      new DataOutputStream(stringStream).writeUTF(string);
+      stringStream.writeTo(outputStream);
+      offset += stringStream.size();
+    }
+
+  }
+
+}
\ No newline at end of file
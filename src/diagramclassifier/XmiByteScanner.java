@@ -0,0 +1,449 @@
+package diagramclassifier;
+
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+
+/**
+ * This class reads an ArgoUML class diagram from its XMI 1.2 file and
+ * generates the E-graph representing it without the ArgoUML model or an
+ * XML parser. The file is memory-mapped and its bytes are scanned for the
+ * tags only, up to the end of the first model. The element names and the
+ * xmi.id and xmi.idref values are matched as byte ranges of the file:
+ * the ids are hashed into an open-addressing table of int handles, and
+ * only the names and the bounds of the model elements read by XmiModel
+ * are decoded into strings. The scanner expects well-formed XMI in UTF-8
+ * as written by ArgoUML and does not validate it.
+ * @author Alexey Tazin
+ */
+public class XmiByteScanner {
+
+  // The local names of the XMI elements as bytes, see XmiModel
+  private static final byte[][] ELEMENT_NAME_BYTES = new byte[XmiModel.ELEMENT_NAMES.length][];
+
+  private static final byte[] XMI_ID = "xmi.id".getBytes(StandardCharsets.US_ASCII);
+
+  private static final byte[] XMI_IDREF = "xmi.idref".getBytes(StandardCharsets.US_ASCII);
+
+  private static final byte[] NAME = "name".getBytes(StandardCharsets.US_ASCII);
+
+  private static final byte[] LOWER = "lower".getBytes(StandardCharsets.US_ASCII);
+
+  private static final byte[] UPPER = "upper".getBytes(StandardCharsets.US_ASCII);
+
+  private static final byte[] IS_NAVIGABLE = "isNavigable".getBytes(StandardCharsets.US_ASCII);
+
+  // The attribute names XmiModel asks for as bytes
+  private static final HashMap<String, byte[]> ATTRIBUTE_NAME_BYTES = new HashMap<String, byte[]>();
+
+  static {
+    for (int i = 0; i < XmiModel.ELEMENT_NAMES.length; i++)
+      ELEMENT_NAME_BYTES[i] = XmiModel.ELEMENT_NAMES[i].getBytes(StandardCharsets.US_ASCII);
+    ATTRIBUTE_NAME_BYTES.put("name", NAME);
+    ATTRIBUTE_NAME_BYTES.put("lower", LOWER);
+    ATTRIBUTE_NAME_BYTES.put("upper", UPPER);
+    ATTRIBUTE_NAME_BYTES.put("isNavigable", IS_NAVIGABLE);
+  }
+
+  /**
+   * The table of the handles of the ids found in the file. An id is kept
+   * as its byte range in the file and its handle is the index of the
+   * range. The table is probed linearly and doubled when half full.
+   */
+  private static class IdTable {
+
+    private ByteBuffer buffer;
+
+    // The handle plus 1 of the id in each slot; 0 for an empty slot
+    private int[] slots = new int[1024];
+
+    // The offsets, lengths and hashes of the ids by their handles
+    private int[] offsets = new int[512];
+    private int[] lengths = new int[512];
+    private int[] hashes = new int[512];
+
+    private int size = 0;
+
+    IdTable(ByteBuffer buffer) {
+      this.buffer = buffer;
+    }
+
+    /**
+     * Returns the handle of the id in the given byte range, adding it if
+     * it is new.
+     * @param offset - the offset of the id
+     *        length - the length of the id
+     * @return the handle of the id
+     */
+    int getHandle(int offset, int length) {
+      int hash = 0;
+      for (int i = offset; i < offset + length; i++)
+        hash = 31 * hash + buffer.get(i);
+      hash ^= hash >>> 16;
+      int mask = slots.length - 1;
+      for (int slot = hash & mask; ; slot = (slot + 1) & mask) {
+        int handle = slots[slot] - 1;
+        if (handle < 0) {
+          handle = add(offset, length, hash);
+          slots[slot] = handle + 1;
+          if (size * 2 > slots.length)
+            rehash();
+          return handle;
+        }
+        if (hashes[handle] == hash && equals(offsets[handle], lengths[handle], offset, length))
+          return handle;
+      }
+    }
+
+    private int add(int offset, int length, int hash) {
+      if (size == offsets.length) {
+        offsets = Arrays.copyOf(offsets, size * 2);
+        lengths = Arrays.copyOf(lengths, size * 2);
+        hashes = Arrays.copyOf(hashes, size * 2);
+      }
+      offsets[size] = offset;
+      lengths[size] = length;
+      hashes[size] = hash;
+      return size++;
+    }
+
+    private void rehash() {
+      slots = new int[slots.length * 2];
+      int mask = slots.length - 1;
+      for (int handle = 0; handle < size; handle++) {
+        int slot = hashes[handle] & mask;
+        while (slots[slot] != 0)
+          slot = (slot + 1) & mask;
+        slots[slot] = handle + 1;
+      }
+    }
+
+    private boolean equals(int offset1, int length1, int offset2, int length2) {
+      if (length1 != length2)
+        return false;
+      for (int i = 0; i < length1; i++)
+        if (buffer.get(offset1 + i) != buffer.get(offset2 + i))
+          return false;
+      return true;
+    }
+
+  }
+
+  // The scanned XMI contents
+  private ByteBuffer buffer;
+
+  private IdTable idTable;
+
+  private XmiModel xmiModel = new XmiModel();
+
+  // The byte ranges of the names and values of the attributes of the
+  // current tag
+  private int[] attrNameOffsets = new int[16];
+  private int[] attrNameLengths = new int[16];
+  private int[] attrValueOffsets = new int[16];
+  private int[] attrValueLengths = new int[16];
+  private int attrsNum = 0;
+
+  // The attributes of the current tag decoded on demand
+  private XmiModel.Attributes attributes = new XmiModel.Attributes() {
+    public String getValue(String name) {
+      int attr = findAttribute(name);
+      return attr < 0 ? null : decode(attrValueOffsets[attr], attrValueLengths[attr]);
+    }
+  };
+
+  private XmiByteScanner(ByteBuffer buffer) {
+    this.buffer = buffer;
+    this.idTable = new IdTable(buffer);
+  }
+
+  /**
+   * Reads the given XMI file and generates an E-graph representing the
+   * class diagram stored in it. A plain XMI file is memory-mapped; the XMI
+   * contents of other files are read into memory as described in XmiFiles.
+   * @param fileName - the XMI file name
+   * @return the E-graph representing the class diagram
+   */
+  public static DiagramGraph readDiagramGraph(String fileName) throws IOException {
+    return readDiagramGraph(mapXmiFile(fileName));
+  }
+
+  /**
+   * Scans the given XMI contents and generates an E-graph representing the
+   * class diagram stored in it.
+   * @param buffer - the XMI contents from its position to its limit
+   * @return the E-graph representing the class diagram
+   * @throws IOException if a tag is not terminated
+   */
+  public static DiagramGraph readDiagramGraph(ByteBuffer buffer) throws IOException {
+    XmiByteScanner xmiByteScanner = new XmiByteScanner(buffer);
+    xmiByteScanner.scan();
+    DiagramGraph diagramGraph = new DiagramGraph();
+    xmiByteScanner.xmiModel.generateDiagramGraph(new DiagramGraphBuilder(diagramGraph));
+    return diagramGraph;
+  }
+
+  /**
+   * Maps the XMI contents of the given file into memory. Archives and
+   * compressed files are read into a heap buffer instead. An entry of an
+   * XMI bundle is a slice of the mapped bundle.
+   * @param fileName - the file name
+   * @return the XMI contents
+   */
+  public static ByteBuffer mapXmiFile(String fileName) throws IOException {
+    ByteBuffer buffer;
+    if (XmiBundle.isBundleEntry(fileName))
+      buffer = XmiBundle.mapBundleEntry(fileName);
+    else if (XmiFiles.isZargoFile(fileName))
+      return ByteBuffer.wrap(XmiFiles.readXmiBytes(fileName));
+    else {
+      FileChannel channel = FileChannel.open(Paths.get(fileName), StandardOpenOption.READ);
+      try {
+        buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+      } finally {
+        channel.close();
+      }
+    }
+    if (buffer.limit() >= 2 && (buffer.get(0) & 0xff) == 0x1f && (buffer.get(1) & 0xff) == 0x8b)
+      return ByteBuffer.wrap(XmiFiles.readXmiBytes(fileName));
+    return buffer;
+  }
+
+  /**
+   * Scans the tags up to the end of the first model and passes them to
+   * the XMI model.
+   */
+  private void scan() throws IOException {
+    int limit = buffer.limit();
+    int pos = buffer.position();
+    while (!xmiModel.isComplete()) {
+      pos = indexOf((byte) '<', pos, limit);
+      if (pos < 0 || pos + 1 >= limit)
+        break;
+      byte b = buffer.get(pos + 1);
+      if (b == '?') {
+        pos = skipTo("?>", pos + 2, limit);
+      } else if (b == '!') {
+        if (startsWith("<!--", pos, limit))
+          pos = skipTo("-->", pos + 4, limit);
+        else if (startsWith("<![CDATA[", pos, limit))
+          pos = skipTo("]]>", pos + 9, limit);
+        else
+          pos = skipTo(">", pos + 2, limit);
+      } else if (b == '/') {
+        pos = skipTo(">", pos + 2, limit);
+        xmiModel.endElement();
+      } else
+        pos = scanStartTag(pos + 1, limit);
+    }
+  }
+
+  /**
+   * Scans a start tag and its attributes.
+   * @param pos - the position after the opening bracket
+   *        limit - the end of the contents
+   * @return the position after the tag
+   */
+  private int scanStartTag(int pos, int limit) throws IOException {
+    int nameOffset = pos;
+    int localNameOffset = pos;
+    while (pos < limit && !isNameEnd(buffer.get(pos))) {
+      if (buffer.get(pos) == ':')
+        localNameOffset = pos + 1;
+      pos++;
+    }
+    int elementCode = getElementCode(localNameOffset, pos - localNameOffset);
+    attrsNum = 0;
+    boolean empty = false;
+    while (true) {
+      pos = skipWhitespace(pos, limit);
+      if (pos >= limit)
+        throw new IOException("Unterminated tag at byte " + nameOffset);
+      byte b = buffer.get(pos);
+      if (b == '>') {
+        pos++;
+        break;
+      }
+      if (b == '/') {
+        empty = true;
+        pos = skipTo(">", pos + 1, limit);
+        break;
+      }
+      int attrNameOffset = pos;
+      while (pos < limit && !isNameEnd(buffer.get(pos)) && buffer.get(pos) != '=')
+        pos++;
+      int attrNameLength = pos - attrNameOffset;
+      pos = skipWhitespace(pos, limit);
+      if (pos >= limit || buffer.get(pos) != '=')
+        throw new IOException("Malformed attribute at byte " + attrNameOffset);
+      pos = skipWhitespace(pos + 1, limit);
+      if (pos >= limit)
+        throw new IOException("Unterminated tag at byte " + nameOffset);
+      byte quote = buffer.get(pos);
+      int valueEnd = indexOf(quote, pos + 1, limit);
+      if (valueEnd < 0)
+        throw new IOException("Unterminated attribute at byte " + attrNameOffset);
+      addAttribute(attrNameOffset, attrNameLength, pos + 1, valueEnd - pos - 1);
+      pos = valueEnd + 1;
+    }
+    if (elementCode != XmiModel.OTHER) {
+      int id = findAttribute(XMI_ID);
+      int idref = findAttribute(XMI_IDREF);
+      xmiModel.startElement(elementCode,
+                            id < 0 ? -1 : idTable.getHandle(attrValueOffsets[id], attrValueLengths[id]),
+                            idref < 0 ? -1 : idTable.getHandle(attrValueOffsets[idref], attrValueLengths[idref]),
+                            attributes);
+    } else
+      xmiModel.startElement(XmiModel.OTHER, -1, -1, attributes);
+    if (empty)
+      xmiModel.endElement();
+    return pos;
+  }
+
+  private void addAttribute(int nameOffset, int nameLength, int valueOffset, int valueLength) {
+    if (attrsNum == attrNameOffsets.length) {
+      attrNameOffsets = Arrays.copyOf(attrNameOffsets, attrsNum * 2);
+      attrNameLengths = Arrays.copyOf(attrNameLengths, attrsNum * 2);
+      attrValueOffsets = Arrays.copyOf(attrValueOffsets, attrsNum * 2);
+      attrValueLengths = Arrays.copyOf(attrValueLengths, attrsNum * 2);
+    }
+    attrNameOffsets[attrsNum] = nameOffset;
+    attrNameLengths[attrsNum] = nameLength;
+    attrValueOffsets[attrsNum] = valueOffset;
+    attrValueLengths[attrsNum] = valueLength;
+    attrsNum++;
+  }
+
+  private int findAttribute(String name) {
+    byte[] nameBytes = ATTRIBUTE_NAME_BYTES.get(name);
+    return findAttribute(nameBytes != null ? nameBytes : name.getBytes(StandardCharsets.US_ASCII));
+  }
+
+  /**
+   * Finds the attribute of the current tag with the given name.
+   * @param name - the attribute name
+   * @return the index of the attribute; -1 if the tag has no such attribute
+   */
+  private int findAttribute(byte[] name) {
+    for (int attr = 0; attr < attrsNum; attr++)
+      if (equals(attrNameOffsets[attr], attrNameLengths[attr], name))
+        return attr;
+    return -1;
+  }
+
+  /**
+   * Returns the code of the XMI element with the local name in the given
+   * byte range.
+   * @param offset - the offset of the local name
+   *        length - the length of the local name
+   * @return the code of the element; OTHER if it is not read
+   */
+  private int getElementCode(int offset, int length) {
+    for (int i = 0; i < ELEMENT_NAME_BYTES.length; i++)
+      if (equals(offset, length, ELEMENT_NAME_BYTES[i]))
+        return XmiModel.ELEMENT_CODES[i];
+    return XmiModel.OTHER;
+  }
+
+  private boolean equals(int offset, int length, byte[] bytes) {
+    if (length != bytes.length)
+      return false;
+    for (int i = 0; i < length; i++)
+      if (buffer.get(offset + i) != bytes[i])
+        return false;
+    return true;
+  }
+
+  /**
+   * Decodes the attribute value in the given byte range, replacing the
+   * character and entity references.
+   * @param offset - the offset of the value
+   *        length - the length of the value
+   * @return the attribute value
+   */
+  private String decode(int offset, int length) {
+    byte[] bytes = new byte[length];
+    for (int i = 0; i < length; i++)
+      bytes[i] = buffer.get(offset + i);
+    String value = new String(bytes, StandardCharsets.UTF_8);
+    if (value.indexOf('&') < 0)
+      return value;
+    StringBuilder result = new StringBuilder();
+    for (int i = 0; i < value.length(); i++) {
+      char c = value.charAt(i);
+      int end = c == '&' ? value.indexOf(';', i) : -1;
+      if (end < 0) {
+        result.append(c);
+        continue;
+      }
+      String entity = value.substring(i + 1, end);
+      if (entity.equals("lt"))
+        result.append('<');
+      else if (entity.equals("gt"))
+        result.append('>');
+      else if (entity.equals("amp"))
+        result.append('&');
+      else if (entity.equals("quot"))
+        result.append('"');
+      else if (entity.equals("apos"))
+        result.append('\'');
+      else if (entity.startsWith("#x"))
+        result.appendCodePoint(Integer.parseInt(entity.substring(2), 16));
+      else if (entity.startsWith("#"))
+        result.appendCodePoint(Integer.parseInt(entity.substring(1)));
+      else
+        result.append('&').append(entity).append(';');
+      i = end;
+    }
+    return result.toString();
+  }
+
+  private int indexOf(byte b, int pos, int limit) {
+    for (; pos < limit; pos++)
+      if (buffer.get(pos) == b)
+        return pos;
+    return -1;
+  }
+
+  private boolean startsWith(String prefix, int pos, int limit) {
+    if (pos + prefix.length() > limit)
+      return false;
+    for (int i = 0; i < prefix.length(); i++)
+      if (buffer.get(pos + i) != prefix.charAt(i))
+        return false;
+    return true;
+  }
+
+  /**
+   * Returns the position after the given terminator.
+   * @param terminator - the terminator
+   *        pos - the position to search from
+   *        limit - the end of the contents
+   * @return the position after the terminator
+   * @throws IOException if there is no terminator
+   */
+  private int skipTo(String terminator, int pos, int limit) throws IOException {
+    for (; pos <= limit - terminator.length(); pos++)
+      if (startsWith(terminator, pos, limit))
+        return pos + terminator.length();
+    throw new IOException("Missing " + terminator + " at the end of the XMI contents");
+  }
+
+  private int skipWhitespace(int pos, int limit) {
+    while (pos < limit && isWhitespace(buffer.get(pos)))
+      pos++;
+    return pos;
+  }
+
+  private static boolean isWhitespace(byte b) {
+    return b == ' ' || b == '\t' || b == '\r' || b == '\n';
+  }
+
+  private static boolean isNameEnd(byte b) {
+    return isWhitespace(b) || b == '>' || b == '/';
+  }
+
+}
\ No newline at end of file
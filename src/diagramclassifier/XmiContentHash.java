@@ -0,0 +1,268 @@
+package diagramclassifier;
+
+import java.io.*;
+import java.security.*;
+import java.util.*;
+import javax.xml.stream.*;
+
+/**
+ * This class calculates a hash of the contents of an XMI file that is the
+ * same for the re-exports of the same class diagram. The XMI header and
+ * the timestamp are left out, and the xmi.id values, which ArgoUML
+ * generates anew on each export, are replaced by the local name and the
+ * name of the element they identify. The ids of the elements that share
+ * their local name and name, such as the unnamed generalizations, get the
+ * hash of the element as well, and only the ids of identical elements are
+ * numbered in the order of their first occurrence. The hash of an
+ * element is the SHA-256 digest of its name, its sorted attributes, its
+ * text and the sorted hashes of its child elements, so the order of the
+ * elements does not matter either. The E-graph does not depend on the
+ * order, so the diagrams with the same hash are in the same class.
+ * @author Alexey Tazin
+ */
+public class XmiContentHash {
+
+  private static final XMLInputFactory inputFactory = createInputFactory();
+
+  /**
+   * This class represents an element of the XMI contents.
+   */
+  private static class XmiElement {
+
+    // The local name of the element
+    String name;
+
+    // The names and values of the attributes of the element, one after
+    // another
+    ArrayList<String> attrList = new ArrayList<String>();
+
+    StringBuilder text = new StringBuilder();
+
+    ArrayList<XmiElement> childList = new ArrayList<XmiElement>();
+
+    XmiElement(String name) {
+      this.name = name;
+    }
+
+  }
+
+  private XmiContentHash() {
+  }
+
+  private static XMLInputFactory createInputFactory() {
+    XMLInputFactory inputFactory = XMLInputFactory.newInstance();
+    inputFactory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+    return inputFactory;
+  }
+
+  /**
+   * Calculates the hash of the given XMI contents.
+   * @param inputStream - the XMI contents
+   * @return the hash as a hexadecimal string
+   * @throws XMLStreamException if the contents are not well-formed XML
+   */
+  public static String calculateHash(InputStream inputStream) throws XMLStreamException {
+    XmiElement root = readXmiElements(inputStream);
+
+    // The labels of the ids: the local name and the name of the element
+    // defining the id
+    HashMap<String, String> idLabelMap = new HashMap<String, String>();
+    HashSet<String> idrefSet = new HashSet<String>();
+    collectIds(root, idLabelMap, idrefSet);
+    MessageDigest messageDigest = createMessageDigest();
+
+    // The referenced ids of the elements with unique labels are replaced by
+    // the labels
+    HashMap<String, String> idMap = new HashMap<String, String>();
+    HashMap<String, Integer> labelFreqMap = getFreqMap(idLabelMap.values());
+    for (String idref : idrefSet) {
+      String label = idLabelMap.get(idref);
+      if (label != null && labelFreqMap.get(label) == 1)
+        idMap.put(idref, label);
+    }
+
+    // The other referenced ids get the hashes of their elements
+    if (idMap.size() < idrefSet.size()) {
+      HashMap<String, byte[]> idHashMap = new HashMap<String, byte[]>();
+      calculateHash(root, idMap, messageDigest, idrefSet, idHashMap);
+      for (Map.Entry<String, byte[]> entry : idHashMap.entrySet())
+        idLabelMap.put(entry.getKey(), idLabelMap.get(entry.getKey()) + ":" + toHexString(entry.getValue()));
+      labelFreqMap = getFreqMap(idLabelMap.values());
+      assignIds(root, idLabelMap, idrefSet, labelFreqMap, idMap);
+    }
+
+    return toHexString(calculateHash(root, idMap, messageDigest, null, null));
+  }
+
+  private static HashMap<String, Integer> getFreqMap(Collection<String> labelList) {
+    HashMap<String, Integer> labelFreqMap = new HashMap<String, Integer>();
+    for (String label : labelList)
+      labelFreqMap.put(label, labelFreqMap.containsKey(label) ? labelFreqMap.get(label) + 1 : 1);
+    return labelFreqMap;
+  }
+
+  private static XmiElement readXmiElements(InputStream inputStream) throws XMLStreamException {
+    XMLStreamReader reader = inputFactory.createXMLStreamReader(inputStream);
+    XmiElement root = new XmiElement("");
+    ArrayList<XmiElement> elementStack = new ArrayList<XmiElement>();
+    elementStack.add(root);
+    // The depth of the skipped XMI header; 0 outside of it
+    int headerDepth = 0;
+    try {
+      while (reader.hasNext()) {
+        int event = reader.next();
+        if (event == XMLStreamConstants.START_ELEMENT) {
+          if (headerDepth > 0 || reader.getLocalName().equals("XMI.header")) {
+            headerDepth++;
+            continue;
+          }
+          XmiElement element = new XmiElement(reader.getLocalName());
+          for (int i = 0; i < reader.getAttributeCount(); i++) {
+            String attrName = reader.getAttributeLocalName(i);
+            if (attrName.equals("timestamp"))
+              continue;
+            element.attrList.add(attrName);
+            element.attrList.add(reader.getAttributeValue(i));
+          }
+          elementStack.get(elementStack.size() - 1).childList.add(element);
+          elementStack.add(element);
+        } else if (event == XMLStreamConstants.END_ELEMENT) {
+          if (headerDepth > 0)
+            headerDepth--;
+          else
+            elementStack.remove(elementStack.size() - 1);
+        } else if ((event == XMLStreamConstants.CHARACTERS || event == XMLStreamConstants.CDATA) && headerDepth == 0)
+          elementStack.get(elementStack.size() - 1).text.append(reader.getText());
+      }
+    } finally {
+      reader.close();
+    }
+    return root;
+  }
+
+  private static void collectIds(XmiElement element, HashMap<String, String> idLabelMap, HashSet<String> idrefSet) {
+    String id = getAttributeValue(element, "xmi.id");
+    if (id != null) {
+      String name = getAttributeValue(element, "name");
+      idLabelMap.put(id, element.name + ":" + (name == null ? "" : name));
+    }
+    String idref = getAttributeValue(element, "xmi.idref");
+    if (idref != null)
+      idrefSet.add(idref);
+    for (XmiElement childElement : element.childList)
+      collectIds(childElement, idLabelMap, idrefSet);
+  }
+
+  /**
+   * Replaces the referenced ids not replaced yet by their labels, numbered
+   * in the document order if the labels are shared. The ids of other
+   * models get only their numbers.
+   */
+  private static void assignIds(XmiElement element, HashMap<String, String> idLabelMap, HashSet<String> idrefSet,
+                                HashMap<String, Integer> labelFreqMap, HashMap<String, String> idMap) {
+    for (int i = 0; i < element.attrList.size(); i += 2) {
+      String attrName = element.attrList.get(i);
+      if (!attrName.equals("xmi.id") && !attrName.equals("xmi.idref"))
+        continue;
+      String id = element.attrList.get(i + 1);
+      if (idMap.containsKey(id) || !idrefSet.contains(id))
+        continue;
+      String label = idLabelMap.get(id);
+      if (label == null)
+        idMap.put(id, "#" + idMap.size());
+      else if (labelFreqMap.get(label) > 1)
+        idMap.put(id, label + "#" + idMap.size());
+      else
+        idMap.put(id, label);
+    }
+    for (XmiElement childElement : element.childList)
+      assignIds(childElement, idLabelMap, idrefSet, labelFreqMap, idMap);
+  }
+
+  /**
+   * Calculates the hash of the given element and its child elements.
+   * @param element - the element
+   *        idMap - the normalized ids; the referenced ids missing from it 
+   *        are hashed as unknown
+   *        messageDigest - the digest to use
+   *        idrefSet - the referenced ids; null if the hashes of the elements 
+   *        are not collected
+   *        idHashMap - the hashes of the elements with the referenced ids 
+   *        missing from idMap, filled in
+   * @return the hash of the element
+   */
+  private static byte[] calculateHash(XmiElement element, HashMap<String, String> idMap, MessageDigest messageDigest, 
+                                      HashSet<String> idrefSet, HashMap<String, byte[]> idHashMap) {
+    ArrayList<byte[]> childHashList = new ArrayList<byte[]>();
+    for (XmiElement childElement : element.childList)
+      childHashList.add(calculateHash(childElement, idMap, messageDigest, idrefSet, idHashMap));
+    Collections.sort(childHashList, new Comparator<byte[]>() {
+      public int compare(byte[] hash1, byte[] hash2) {
+        for (int i = 0; i < hash1.length; i++)
+          if (hash1[i] != hash2[i])
+            return (hash1[i] & 0xff) - (hash2[i] & 0xff);
+        return 0;
+      }
+    });
+
+    ArrayList<String> attrList = new ArrayList<String>();
+    for (int i = 0; i < element.attrList.size(); i += 2) {
+      String attrName = element.attrList.get(i);
+      String value = element.attrList.get(i + 1);
+      if (attrName.equals("xmi.idref"))
+        value = idMap.containsKey(value) ? idMap.get(value) : "?";
+      else if (attrName.equals("xmi.id")) {
+        // The id of an element with a unique label is implied by the 
+        // element itself
+        value = idMap.get(value);
+        if (value == null || value.indexOf('#') < 0)
+          continue;
+      }
+      attrList.add(attrName + "=" + value);
+    }
+    Collections.sort(attrList);
+
+    StringBuilder contents = new StringBuilder(element.name);
+    for (String attr : attrList)
+      contents.append('\u0000').append(attr);
+    contents.append('\u0001').append(element.text.toString().trim());
+    messageDigest.reset();
+    try {
+      messageDigest.update(contents.toString().getBytes("UTF-8"));
+    } catch (UnsupportedEncodingException e) {
+      throw new IllegalStateException(e);
+    }
+    for (byte[] childHash : childHashList)
+      messageDigest.update(childHash);
+    byte[] hash = messageDigest.digest();
+    if (idrefSet != null) {
+      String id = getAttributeValue(element, "xmi.id");
+      if (id != null && idrefSet.contains(id) && !idMap.containsKey(id))
+        idHashMap.put(id, hash);
+    }
+    return hash;
+  }
+
+  private static String getAttributeValue(XmiElement element, String attrName) {
+    for (int i = 0; i < element.attrList.size(); i += 2)
+      if (element.attrList.get(i).equals(attrName))
+        return element.attrList.get(i + 1);
+    return null;
+  }
+
+  private static MessageDigest createMessageDigest() {
+    try {
+      return MessageDigest.getInstance("SHA-256");
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  private static String toHexString(byte[] bytes) {
+    StringBuilder hexString = new StringBuilder();
+    for (byte b : bytes)
+      hexString.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+    return hexString.toString();
+  }
+
+}
\ No newline at end of file
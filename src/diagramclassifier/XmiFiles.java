@@ -0,0 +1,136 @@
+package diagramclassifier;
+
+import java.io.*;
+import java.nio.*;
+import java.util.*;
+import java.util.zip.*;
+
+/**
+ * This class opens the XMI contents of the files the classifier reads. 
+ * Besides plain XMI files, these are ArgoUML .zargo project archives and 
+ * gzip-compressed XMI files. The XMI entry of an archive is streamed out of 
+ * it without extracting the archive, and the diagram layout entries are 
+ * not read at all. Compressed XMI is recognized by its magic bytes and 
+ * decompressed on the fly.
+ * @author Alexey Tazin 
+ */
+public final class XmiFiles {
+
+  /**
+   * This is never instantiated.
+   */
+  private XmiFiles() {
+  }
+
+  /**
+   * Returns true if the given file is an ArgoUML project archive.
+   * @param fileName - the file name
+   * @return true if the file is a .zargo archive; false otherwise
+   */
+  public static boolean isZargoFile(String fileName) {
+    return fileName.toLowerCase().endsWith(".zargo");
+  }
+
+  /**
+   * Returns true if the given file is a compressed XMI file.
+   * @param fileName - the file name
+   * @return true if the file is a .xmi.gz file; false otherwise
+   */
+  public static boolean isCompressedXmiFile(String fileName) {
+    return fileName.toLowerCase().endsWith(".xmi.gz");
+  }
+
+  /**
+   * Opens the XMI contents of the given file. The file may also be an 
+   * entry of an XMI bundle as described in XmiBundle.
+   * @param fileName - the file name
+   * @return the stream of the XMI contents
+   */
+  public static InputStream openXmiStream(String fileName) throws IOException {
+    if (XmiBundle.isBundleEntry(fileName)) {
+      ByteBuffer buffer = XmiBundle.mapBundleEntry(fileName);
+      byte[] bytes = new byte[buffer.remaining()];
+      buffer.get(bytes);
+      return openXmiStream(new ByteArrayInputStream(bytes));
+    }
+    if (isZargoFile(fileName))
+      return openZargoXmiStream(fileName);
+    return openXmiStream(new FileInputStream(fileName));
+  }
+
+  /**
+   * Opens the XMI contents of the given stream. The stream is decompressed 
+   * if it starts with the gzip magic bytes. Zstandard streams are 
+   * recognized but not supported since the JDK has no decoder for them.
+   * @param inputStream - the stream of plain or compressed XMI
+   * @return the stream of the XMI contents
+   */
+  public static InputStream openXmiStream(InputStream inputStream) throws IOException {
+    InputStream bufferedInputStream = new BufferedInputStream(inputStream, 65536);
+    bufferedInputStream.mark(4);
+    int[] magic = new int[4];
+    for (int i = 0; i < magic.length; i++)
+      magic[i] = bufferedInputStream.read();
+    bufferedInputStream.reset();
+    if (magic[0] == 0x1f && magic[1] == 0x8b)
+      return new GZIPInputStream(bufferedInputStream, 65536);
+    if (magic[0] == 0x28 && magic[1] == 0xb5 && magic[2] == 0x2f && magic[3] == 0xfd) {
+      bufferedInputStream.close();
+      throw new IOException("Zstandard compressed XMI is not supported, use gzip");
+    }
+    return bufferedInputStream;
+  }
+
+  /**
+   * Opens the XMI entry of the given ArgoUML project archive. The entry is 
+   * located through the central directory of the archive, so only the 
+   * compressed XMI entry is read from the disk.
+   * @param fileName - the archive file name
+   * @return the stream of the XMI entry; closing it closes the archive
+   */
+  public static InputStream openZargoXmiStream(String fileName) throws IOException {
+    final ZipFile zipFile = new ZipFile(fileName);
+    try {
+      Enumeration<? extends ZipEntry> entries = zipFile.entries();
+      while (entries.hasMoreElements()) {
+        ZipEntry entry = entries.nextElement();
+        if (!entry.isDirectory() && entry.getName().toLowerCase().endsWith(".xmi")) {
+          return new FilterInputStream(zipFile.getInputStream(entry)) {
+            public void close() throws IOException {
+              try {
+                super.close();
+              } finally {
+                zipFile.close();
+              }
+            }
+          };
+        }
+      }
+    } catch (IOException e) {
+      zipFile.close();
+      throw e;
+    }
+    zipFile.close();
+    throw new IOException(fileName + " contains no XMI entry");
+  }
+
+  /**
+   * Reads the XMI contents of the given file into memory.
+   * @param fileName - the file name
+   * @return the XMI contents
+   */
+  public static byte[] readXmiBytes(String fileName) throws IOException {
+    InputStream inputStream = openXmiStream(fileName);
+    try {
+      ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+      byte[] buffer = new byte[8192];
+      int length;
+      while ((length = inputStream.read(buffer)) != -1)
+        outputStream.write(buffer, 0, length);
+      return outputStream.toByteArray();
+    } finally {
+      inputStream.close();
+    }
+  }
+
+}
\ No newline at end of file
@@ -0,0 +1,75 @@
+package diagramclassifier;
+
+import java.io.*;
+import java.util.*;
+import javax.xml.stream.*;
+
+/**
+ * This class reads an ArgoUML class diagram from its XMI 1.2 file and
+ * generates the E-graph representing it without the ArgoUML model. The
+ * file is read by a StAX parser in one pass up to the end of the first
+ * model, and the elements are collected by XmiModel, which resolves the
+ * xmi.idref links and builds the E-graph.
+ * @author Alexey Tazin
+ */
+public class XmiGraphReader {
+
+  private static final XMLInputFactory inputFactory = createInputFactory();
+
+  private XmiGraphReader() {
+  }
+
+  private static XMLInputFactory createInputFactory() {
+    XMLInputFactory inputFactory = XMLInputFactory.newInstance();
+    inputFactory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+    inputFactory.setProperty(XMLInputFactory.IS_REPLACING_ENTITY_REFERENCES, false);
+    return inputFactory;
+  }
+
+  /**
+   * Reads the given XMI contents and generates an E-graph representing the
+   * class diagram stored in it.
+   * @param inputStream - the XMI contents
+   * @return the E-graph representing the class diagram
+   * @throws XMLStreamException if the contents are not well-formed XML
+   */
+  public static DiagramGraph readDiagramGraph(InputStream inputStream) throws XMLStreamException {
+    XmiModel xmiModel = new XmiModel();
+    // The handles of the ids in the order of their first occurrence
+    HashMap<String, Integer> handleMap = new HashMap<String, Integer>();
+    final XMLStreamReader reader = inputFactory.createXMLStreamReader(inputStream);
+    XmiModel.Attributes attributes = new XmiModel.Attributes() {
+      public String getValue(String name) {
+        return reader.getAttributeValue(null, name);
+      }
+    };
+    try {
+      while (reader.hasNext() && !xmiModel.isComplete()) {
+        int event = reader.next();
+        if (event == XMLStreamConstants.START_ELEMENT)
+          xmiModel.startElement(XmiModel.getElementCode(reader.getLocalName()),
+                                getHandle(handleMap, reader.getAttributeValue(null, "xmi.id")),
+                                getHandle(handleMap, reader.getAttributeValue(null, "xmi.idref")), attributes);
+        else if (event == XMLStreamConstants.END_ELEMENT)
+          xmiModel.endElement();
+      }
+    } finally {
+      reader.close();
+    }
+    DiagramGraph diagramGraph = new DiagramGraph();
+    xmiModel.generateDiagramGraph(new DiagramGraphBuilder(diagramGraph));
+    return diagramGraph;
+  }
+
+  private static int getHandle(HashMap<String, Integer> handleMap, String id) {
+    if (id == null)
+      return -1;
+    Integer handle = handleMap.get(id);
+    if (handle == null) {
+      handle = handleMap.size();
+      handleMap.put(id, handle);
+    }
+    return handle;
+  }
+
+}
\ No newline at end of file
@@ -0,0 +1,444 @@
+package diagramclassifier;
+
+import java.util.*;
+
+/**
+ * This class collects the classes, data types, attributes, generalizations
+ * and associations of the first model of an XMI 1.2 file as its elements
+ * are read by XmiGraphReader or XmiByteScanner, and generates the E-graph
+ * from them by DiagramGraphBuilder in the same order as
+ * DiagramGraphGenerator generates it from the ArgoUML model. The readers
+ * refer to the model elements by int handles of their xmi.id values, so
+ * the ids are never compared as strings here.
+ * <p>
+ * An association end without a multiplicity has the bounds 0..0 as
+ * reported by the ArgoUML model. Associations with more than two ends and
+ * the ends of elements other than classes are skipped, like those of
+ * interfaces are by DiagramGraphGenerator.
+ * @author Alexey Tazin
+ */
+class XmiModel {
+
+  /**
+   * The codes of the XMI elements the model is read from.
+   */
+  static final int OTHER = 0;
+  static final int MODEL = 1;
+  static final int CLASS = 2;
+  static final int ASSOCIATION_CLASS = 3;
+  static final int DATA_TYPE = 4;
+  static final int ATTRIBUTE = 5;
+  static final int GENERALIZATION = 6;
+  static final int ASSOCIATION = 7;
+  static final int ASSOCIATION_END = 8;
+  static final int MULTIPLICITY_RANGE = 9;
+  static final int CLASSIFIER_FEATURE = 10;
+  static final int STRUCTURAL_FEATURE_TYPE = 11;
+  static final int GENERALIZATION_CHILD = 12;
+  static final int GENERALIZATION_PARENT = 13;
+  static final int ASSOCIATION_END_PARTICIPANT = 14;
+  static final int ASSOCIATION_END_MULTIPLICITY = 15;
+
+  /**
+   * The local names of the XMI elements and their codes.
+   */
+  static final String[] ELEMENT_NAMES = {
+    "Model", "Class", "AssociationClass", "DataType", "Primitive", "Enumeration", "ProgrammingLanguageDataType",
+    "Attribute", "Generalization", "Association", "AssociationEnd", "MultiplicityRange", "Classifier.feature",
+    "StructuralFeature.type", "Generalization.child", "Generalization.parent", "AssociationEnd.participant",
+    "AssociationEnd.multiplicity"};
+  static final int[] ELEMENT_CODES = {
+    MODEL, CLASS, ASSOCIATION_CLASS, DATA_TYPE, DATA_TYPE, DATA_TYPE, DATA_TYPE,
+    ATTRIBUTE, GENERALIZATION, ASSOCIATION, ASSOCIATION_END, MULTIPLICITY_RANGE, CLASSIFIER_FEATURE,
+    STRUCTURAL_FEATURE_TYPE, GENERALIZATION_CHILD, GENERALIZATION_PARENT, ASSOCIATION_END_PARTICIPANT,
+    ASSOCIATION_END_MULTIPLICITY};
+
+  private static final HashMap<String, Integer> elementCodeMap = new HashMap<String, Integer>();
+
+  static {
+    for (int i = 0; i < ELEMENT_NAMES.length; i++)
+      elementCodeMap.put(ELEMENT_NAMES[i], ELEMENT_CODES[i]);
+  }
+
+  /**
+   * The attributes of the current XMI element, decoded on demand.
+   */
+  interface Attributes {
+    String getValue(String name);
+  }
+
+  /**
+   * A class of the model.
+   */
+  private static class XmiClass {
+    String name;
+    // The index of the class in the model order
+    int index;
+    ArrayList<XmiAttribute> attributeList = new ArrayList<XmiAttribute>();
+  }
+
+  /**
+   * An attribute of a class.
+   */
+  private static class XmiAttribute {
+    String name;
+    int type = -1;
+  }
+
+  /**
+   * A generalization between two classes.
+   */
+  private static class XmiGeneralization {
+    String name;
+    int child = -1;
+    int parent = -1;
+  }
+
+  /**
+   * An association of the model.
+   */
+  private static class XmiAssociation {
+    String name;
+    ArrayList<XmiAssociationEnd> endList = new ArrayList<XmiAssociationEnd>();
+  }
+
+  /**
+   * An association end.
+   */
+  private static class XmiAssociationEnd {
+    String name;
+    boolean navigable;
+    int participant = -1;
+    boolean multiplicitySet = false;
+    int lower = 0;
+    int upper = 0;
+  }
+
+  // The classes in the model order
+  private ArrayList<XmiClass> classList = new ArrayList<XmiClass>();
+
+  // The classes by the handles of their ids
+  private ArrayList<XmiClass> classByHandleList = new ArrayList<XmiClass>();
+
+  // The names of the data types in the model order
+  private ArrayList<String> dataTypeNameList = new ArrayList<String>();
+
+  // The indices of the data types by the handles of their ids; -1 for
+  // the other handles
+  private int[] dataTypeIndices = new int[64];
+
+  private ArrayList<XmiGeneralization> generalizationList = new ArrayList<XmiGeneralization>();
+
+  private ArrayList<XmiAssociation> associationList = new ArrayList<XmiAssociation>();
+
+  // The codes of the elements from the model down to the current element
+  private int[] elementCodes = new int[64];
+
+  // True for the elements defining a model element by xmi.id
+  private boolean[] definings = new boolean[64];
+
+  private int depth = 0;
+
+  // True once the first model has ended
+  private boolean complete = false;
+
+  // The classes enclosing the current element, the innermost last
+  private ArrayList<XmiClass> classStack = new ArrayList<XmiClass>();
+
+  private XmiAttribute attribute = null;
+  private XmiGeneralization generalization = null;
+  private XmiAssociation association = null;
+  private XmiAssociationEnd associationEnd = null;
+
+  // The number of open AssociationEnd.multiplicity elements
+  private int endMultiplicityDepth = 0;
+
+  XmiModel() {
+    Arrays.fill(dataTypeIndices, -1);
+  }
+
+  /**
+   * Returns the code of the XMI element with the given local name.
+   * @param localName - the local name of the element
+   * @return the code of the element; OTHER if it is not read
+   */
+  static int getElementCode(String localName) {
+    Integer elementCode = elementCodeMap.get(localName);
+    return elementCode == null ? OTHER : elementCode;
+  }
+
+  /**
+   * Returns true once the first model has ended, so the rest of the file
+   * need not be read.
+   */
+  boolean isComplete() {
+    return complete;
+  }
+
+  /**
+   * Reads the start of an XMI element. The elements before the first model
+   * are ignored.
+   * @param elementCode - the code of the element
+   *        id - the handle of the xmi.id of the element; -1 if it has none
+   *        idref - the handle of the xmi.idref of the element; -1 if it
+   *        has none
+   *        attributes - the attributes of the element
+   */
+  void startElement(int elementCode, int id, int idref, Attributes attributes) {
+    if (complete)
+      return;
+    if (depth == 0 && (elementCode != MODEL || id < 0))
+      return;
+    int parentCode = depth == 0 ? OTHER : elementCodes[depth - 1];
+    if (depth == elementCodes.length) {
+      elementCodes = Arrays.copyOf(elementCodes, depth * 2);
+      definings = Arrays.copyOf(definings, depth * 2);
+    }
+    elementCodes[depth] = elementCode;
+    definings[depth] = id >= 0;
+    depth++;
+    if (elementCode == ASSOCIATION_END_MULTIPLICITY)
+      endMultiplicityDepth++;
+    if (idref >= 0) {
+      if (parentCode == STRUCTURAL_FEATURE_TYPE && attribute != null)
+        attribute.type = idref;
+      else if (parentCode == GENERALIZATION_CHILD && generalization != null)
+        generalization.child = idref;
+      else if (parentCode == GENERALIZATION_PARENT && generalization != null)
+        generalization.parent = idref;
+      else if (parentCode == ASSOCIATION_END_PARTICIPANT && associationEnd != null)
+        associationEnd.participant = idref;
+    } else if (elementCode == MULTIPLICITY_RANGE) {
+      if (associationEnd != null && !associationEnd.multiplicitySet && endMultiplicityDepth > 0) {
+        associationEnd.lower = parseBound(attributes.getValue("lower"));
+        associationEnd.upper = parseBound(attributes.getValue("upper"));
+        associationEnd.multiplicitySet = true;
+      }
+    } else if (id < 0) {
+      // A reference by href or a property element
+      return;
+    } else if (elementCode == CLASS || elementCode == ASSOCIATION_CLASS) {
+      XmiClass xmiClass = new XmiClass();
+      xmiClass.name = attributes.getValue("name");
+      xmiClass.index = classList.size();
+      classList.add(xmiClass);
+      while (classByHandleList.size() <= id)
+        classByHandleList.add(null);
+      classByHandleList.set(id, xmiClass);
+      classStack.add(xmiClass);
+      if (elementCode == ASSOCIATION_CLASS) {
+        association = new XmiAssociation();
+        association.name = xmiClass.name;
+        associationList.add(association);
+      }
+    } else if (elementCode == DATA_TYPE) {
+      if (id >= dataTypeIndices.length) {
+        int length = dataTypeIndices.length;
+        dataTypeIndices = Arrays.copyOf(dataTypeIndices, Math.max(length * 2, id + 1));
+        Arrays.fill(dataTypeIndices, length, dataTypeIndices.length, -1);
+      }
+      dataTypeIndices[id] = dataTypeNameList.size();
+      dataTypeNameList.add(attributes.getValue("name"));
+    } else if (elementCode == ATTRIBUTE && parentCode == CLASSIFIER_FEATURE && !classStack.isEmpty()) {
+      attribute = new XmiAttribute();
+      attribute.name = attributes.getValue("name");
+      classStack.get(classStack.size() - 1).attributeList.add(attribute);
+    } else if (elementCode == GENERALIZATION) {
+      generalization = new XmiGeneralization();
+      generalization.name = attributes.getValue("name");
+      generalizationList.add(generalization);
+    } else if (elementCode == ASSOCIATION) {
+      association = new XmiAssociation();
+      association.name = attributes.getValue("name");
+      associationList.add(association);
+    } else if (elementCode == ASSOCIATION_END && association != null) {
+      associationEnd = new XmiAssociationEnd();
+      associationEnd.name = attributes.getValue("name");
+      associationEnd.navigable = !"false".equals(attributes.getValue("isNavigable"));
+      association.endList.add(associationEnd);
+    }
+  }
+
+  /**
+   * Reads the end of the current XMI element.
+   */
+  void endElement() {
+    if (depth == 0)
+      return;
+    depth--;
+    int elementCode = elementCodes[depth];
+    if (depth == 0) {
+      complete = true;
+      return;
+    }
+    if (elementCode == ASSOCIATION_END_MULTIPLICITY)
+      endMultiplicityDepth--;
+    if (!definings[depth])
+      return;
+    if (elementCode == CLASS || elementCode == ASSOCIATION_CLASS) {
+      classStack.remove(classStack.size() - 1);
+      if (elementCode == ASSOCIATION_CLASS)
+        association = null;
+    } else if (elementCode == ATTRIBUTE)
+      attribute = null;
+    else if (elementCode == GENERALIZATION)
+      generalization = null;
+    else if (elementCode == ASSOCIATION)
+      association = null;
+    else if (elementCode == ASSOCIATION_END)
+      associationEnd = null;
+  }
+
+  /**
+   * Generates the E-graph from the model read. Like DiagramGraphGenerator,
+   * the generalizations and the associations are added in the order of the
+   * pairs of their classes, an association at the pair where the class of
+   * one of its ends first meets the class of the other, and the attributes
+   * are added by class and then by data type. The class nodes are added in
+   * the model order along the pairs of the first class, and the data type
+   * nodes along the attributes of the first class, as the generator adds
+   * them.
+   * @param diagramGraphBuilder - the builder of the E-graph
+   */
+  void generateDiagramGraph(DiagramGraphBuilder diagramGraphBuilder) {
+    if (classList.isEmpty())
+      return;
+    ArrayList<Node> classNodeList = new ArrayList<Node>();
+
+    // The generalizations and associations keyed by the pairs of the
+    // indices of their classes
+    TreeMap<Long, ArrayList<Object>> pairElementMap = new TreeMap<Long, ArrayList<Object>>();
+    HashSet<Long> generalizationPairSet = new HashSet<Long>();
+    for (XmiGeneralization generalization : generalizationList) {
+      XmiClass child = getClass(generalization.child);
+      XmiClass parent = getClass(generalization.parent);
+      if (child == null || parent == null)
+        continue;
+      long pair = (long) child.index * classList.size() + parent.index;
+      // Only the first generalization between two classes is found
+      if (generalizationPairSet.add(pair))
+        addPairElement(pairElementMap, pair, generalization);
+    }
+    for (XmiAssociation association : associationList) {
+      if (association.endList.size() != 2)
+        continue;
+      XmiClass class1 = getClass(association.endList.get(0).participant);
+      XmiClass class2 = getClass(association.endList.get(1).participant);
+      if (class1 == null || class2 == null)
+        continue;
+      long pair = (long) Math.min(class1.index, class2.index) * classList.size() + Math.max(class1.index, class2.index);
+      addPairElement(pairElementMap, pair, association);
+    }
+    for (Map.Entry<Long, ArrayList<Object>> entry : pairElementMap.entrySet()) {
+      int i = (int) (entry.getKey() / classList.size());
+      int j = (int) (entry.getKey() % classList.size());
+      addClassNodes(diagramGraphBuilder, classNodeList, i == 0 ? j + 1 : classList.size());
+      for (Object element : entry.getValue())
+        if (element instanceof XmiGeneralization) {
+          XmiGeneralization generalization = (XmiGeneralization) element;
+          diagramGraphBuilder.addGeneralization(generalization.name,
+                                                classNodeList.get(getClass(generalization.child).index),
+                                                classNodeList.get(getClass(generalization.parent).index));
+        } else
+          addAssociation(diagramGraphBuilder, classNodeList, (XmiAssociation) element);
+    }
+    addClassNodes(diagramGraphBuilder, classNodeList, classList.size());
+
+    ArrayList<Node> dataTypeNodeList = new ArrayList<Node>();
+    for (XmiClass xmiClass : classList) {
+      Node classNode = classNodeList.get(xmiClass.index);
+      TreeMap<Integer, ArrayList<XmiAttribute>> dataTypeAttributeMap = new TreeMap<Integer, ArrayList<XmiAttribute>>();
+      for (XmiAttribute attribute : xmiClass.attributeList) {
+        if (attribute.type < 0 || attribute.type >= dataTypeIndices.length || dataTypeIndices[attribute.type] < 0)
+          continue;
+        int dataTypeIndex = dataTypeIndices[attribute.type];
+        if (!dataTypeAttributeMap.containsKey(dataTypeIndex))
+          dataTypeAttributeMap.put(dataTypeIndex, new ArrayList<XmiAttribute>());
+        dataTypeAttributeMap.get(dataTypeIndex).add(attribute);
+      }
+      if (dataTypeNodeList.isEmpty())
+        for (int k = 0; k < dataTypeNameList.size(); k++) {
+          dataTypeNodeList.add(diagramGraphBuilder.addDataType(dataTypeNameList.get(k)));
+          if (dataTypeAttributeMap.containsKey(k))
+            for (XmiAttribute attribute : dataTypeAttributeMap.get(k))
+              diagramGraphBuilder.addAttribute(attribute.name, classNode, dataTypeNodeList.get(k));
+        }
+      else
+        for (Map.Entry<Integer, ArrayList<XmiAttribute>> entry : dataTypeAttributeMap.entrySet())
+          for (XmiAttribute attribute : entry.getValue())
+            diagramGraphBuilder.addAttribute(attribute.name, classNode, dataTypeNodeList.get(entry.getKey()));
+    }
+  }
+
+  /**
+   * Adds the nodes of the classes up to the given one in the model order.
+   * @param diagramGraphBuilder - the builder of the E-graph
+   *        classNodeList - the graph nodes of the classes added so far
+   *        classNodesNum - the number of the class nodes to have
+   */
+  private void addClassNodes(DiagramGraphBuilder diagramGraphBuilder, ArrayList<Node> classNodeList,
+                             int classNodesNum) {
+    while (classNodeList.size() < classNodesNum)
+      classNodeList.add(diagramGraphBuilder.addClass(classList.get(classNodeList.size()).name));
+  }
+
+  /**
+   * Adds the given binary association. Association end 1 is the end at the
+   * class that comes first in the model order. At an association of a
+   * class with itself, both ends are taken as the first end as the ArgoUML
+   * model finds them by their class.
+   * @param diagramGraphBuilder - the builder of the E-graph
+   *        classNodeList - the graph nodes of the classes in the model order
+   *        association - the association
+   */
+  private void addAssociation(DiagramGraphBuilder diagramGraphBuilder, ArrayList<Node> classNodeList,
+                              XmiAssociation association) {
+    XmiAssociationEnd assocEnd1 = association.endList.get(0);
+    XmiAssociationEnd assocEnd2 = association.endList.get(1);
+    XmiClass class1 = getClass(assocEnd1.participant);
+    XmiClass class2 = getClass(assocEnd2.participant);
+    if (class1 == class2)
+      assocEnd2 = assocEnd1;
+    else if (class2.index < class1.index) {
+      XmiAssociationEnd assocEnd = assocEnd1;
+      assocEnd1 = assocEnd2;
+      assocEnd2 = assocEnd;
+    }
+    diagramGraphBuilder.addAssociation(association.name,
+      classNodeList.get(getClass(assocEnd1.participant).index), assocEnd1.name, assocEnd1.navigable,
+      assocEnd1.lower, assocEnd1.upper,
+      classNodeList.get(getClass(assocEnd2.participant).index), assocEnd2.name, assocEnd2.navigable,
+      assocEnd2.lower, assocEnd2.upper);
+  }
+
+  /**
+   * Returns the class with the given handle.
+   * @param handle - the handle of the id of the class; -1 if it is missing
+   * @return the class; null if the handle is not the one of a class
+   */
+  private XmiClass getClass(int handle) {
+    return handle < 0 || handle >= classByHandleList.size() ? null : classByHandleList.get(handle);
+  }
+
+  private static void addPairElement(TreeMap<Long, ArrayList<Object>> pairElementMap, long pair, Object element) {
+    ArrayList<Object> elementList = pairElementMap.get(pair);
+    if (elementList == null) {
+      elementList = new ArrayList<Object>();
+      pairElementMap.put(pair, elementList);
+    }
+    elementList.add(element);
+  }
+
+  /**
+   * Parses a bound of a multiplicity range.
+   * @param bound - the bound; null if it is missing
+   * @return the bound; -1 for unlimited
+   */
+  private static int parseBound(String bound) {
+    if (bound == null)
+      return 0;
+    bound = bound.trim();
+    return bound.equals("*") ? -1 : Integer.parseInt(bound);
+  }
+
+}
\ No newline at end of file
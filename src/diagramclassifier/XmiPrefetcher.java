@@ -0,0 +1,274 @@
+package diagramclassifier;
+
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.*;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * This class reads XMI files ahead of the classifier. A dedicated I/O 
+ * thread keeps the contents of the next XMI files in memory while the 
+ * current class diagram is classified, so the disk latency does not add 
+ * to the classification time.
+ * @author Alexey Tazin 
+ */
+public class XmiPrefetcher {
+
+  /**
+   * This class represents the contents of an XMI file read into memory.
+   */
+  public static class XmiFile {
+
+    // The XMI file name
+    private String fileName;
+
+    // The contents of the XMI file
+    private byte[] bytes;
+
+    // The mapped contents of the XMI file; null if the file is read
+    private ByteBuffer buffer = null;
+
+    // The error reading the XMI file
+    private IOException error;
+
+    public XmiFile(String fileName, byte[] bytes, IOException error) {
+      this.fileName = fileName;
+      this.bytes = bytes;
+      this.error = error;
+    }
+
+    public XmiFile(String fileName, ByteBuffer buffer) {
+      this.fileName = fileName;
+      this.buffer = buffer;
+    }
+
+    public String getFileName() {
+      return fileName;
+    }
+
+    /**
+     * Returns the contents of the XMI file.
+     * @return the contents of the XMI file
+     * @throws IOException if the XMI file could not be read
+     */
+    public byte[] getBytes() throws IOException {
+      if (error != null)
+        throw error;
+      if (bytes == null && buffer != null) {
+        byte[] bufferBytes = new byte[buffer.remaining()];
+        buffer.duplicate().get(bufferBytes);
+        return bufferBytes;
+      }
+      return bytes;
+    }
+
+    /**
+     * Returns the XMI contents of the file as a buffer. The contents of a 
+     * mapped file are not copied.
+     * @return the XMI contents
+     * @throws IOException if the XMI file could not be read
+     */
+    public ByteBuffer getXmiBuffer() throws IOException {
+      if (error != null)
+        throw error;
+      if (buffer != null)
+        return buffer.duplicate();
+      if (bytes.length >= 2 && (bytes[0] & 0xff) == 0x1f && (bytes[1] & 0xff) == 0x8b) {
+        InputStream inputStream = getInputStream();
+        try {
+          ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+          byte[] readBuffer = new byte[8192];
+          int length;
+          while ((length = inputStream.read(readBuffer)) != -1)
+            outputStream.write(readBuffer, 0, length);
+          return ByteBuffer.wrap(outputStream.toByteArray());
+        } finally {
+          inputStream.close();
+        }
+      }
+      return ByteBuffer.wrap(bytes);
+    }
+
+    /**
+     * Returns the XMI contents of the file. Compressed XMI is decompressed 
+     * as described in XmiFiles.
+     * @return the stream of the XMI contents
+     * @throws IOException if the XMI file could not be read
+     */
+    public InputStream getInputStream() throws IOException {
+      return XmiFiles.openXmiStream(new ByteArrayInputStream(getBytes()));
+    }
+
+  }
+
+  // The item marking the end of the XMI files
+  private static final XmiFile END = new XmiFile(null, null, null);
+
+  // The error of enumerating the XMI files in the I/O thread, rethrown to 
+  // the classifier after the files read before it
+  private volatile Throwable readError = null;
+
+  // The XMI file names
+  private Iterator<String> fileNameIterator;
+
+  // The XMI files read ahead; null if the files are read on demand
+  private ArrayBlockingQueue<XmiFile> xmiFileQueue = null;
+
+  private Thread ioThread = null;
+
+  private XmiFile nextXmiFile = null;
+
+  // True if the XMI files are memory-mapped rather than read
+  private boolean mapFiles = false;
+
+  /**
+   * Starts reading the given XMI files ahead.
+   * @param fileNameIterator - the XMI file names
+   *        prefetchNum - the number of XMI files kept in memory ahead of 
+   *        the classifier; the files are read on demand if it is 0
+   */
+  public XmiPrefetcher(Iterator<String> fileNameIterator, int prefetchNum) {
+    this(fileNameIterator, prefetchNum, false);
+  }
+
+  /**
+   * Starts reading or mapping the given XMI files ahead. A mapped file is 
+   * loaded into physical memory by the I/O thread.
+   * @param fileNameIterator - the XMI file names
+   *        prefetchNum - the number of XMI files kept in memory ahead of 
+   *        the classifier; the files are read on demand if it is 0
+   *        mapFiles - true if the plain XMI files are memory-mapped as 
+   *        described in XmiByteScanner
+   */
+  public XmiPrefetcher(Iterator<String> fileNameIterator, int prefetchNum, boolean mapFiles) {
+    this.fileNameIterator = fileNameIterator;
+    this.mapFiles = mapFiles;
+    if (prefetchNum <= 0)
+      return;
+    xmiFileQueue = new ArrayBlockingQueue<XmiFile>(prefetchNum);
+    ioThread = new Thread(new Runnable() {
+      public void run() {
+        readFiles();
+      }
+    }, "xmi-prefetcher");
+    ioThread.setDaemon(true);
+    ioThread.start();
+  }
+
+  /**
+   * Reads the XMI files ahead in the I/O thread. If the input source fails, 
+   * the error is kept and END is queued anyway, so the classifier does not 
+   * wait for files that never come.
+   */
+  private void readFiles() {
+    try {
+      try {
+        while (fileNameIterator.hasNext())
+          xmiFileQueue.put(mapFiles ? mapFile(fileNameIterator.next(), true) : readFile(fileNameIterator.next()));
+      } catch (RuntimeException | Error e) {
+        readError = e;
+      }
+      xmiFileQueue.put(END);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  /**
+   * Maps the XMI contents of the given file into memory as described in 
+   * XmiByteScanner.
+   * @param fileName - the XMI file name
+   *        load - true if the mapped contents are loaded into physical 
+   *        memory right away
+   * @return the contents of the XMI file
+   */
+  public static XmiFile mapFile(String fileName, boolean load) {
+    try {
+      ByteBuffer buffer = XmiByteScanner.mapXmiFile(fileName);
+      if (load && buffer instanceof MappedByteBuffer)
+        ((MappedByteBuffer) buffer).load();
+      return new XmiFile(fileName, buffer);
+    } catch (IOException e) {
+      return new XmiFile(fileName, null, e);
+    }
+  }
+
+  /**
+   * Reads the given XMI file into memory. Compressed XMI files are kept 
+   * compressed until the classifier takes them. The XMI contents of other 
+   * files are read as described in XmiFiles. An entry of an XMI bundle is 
+   * not read but mapped as described in XmiBundle.
+   * @param fileName - the XMI file name
+   * @return the contents of the XMI file
+   */
+  public static XmiFile readFile(String fileName) {
+    try {
+      if (XmiBundle.isBundleEntry(fileName))
+        return new XmiFile(fileName, XmiBundle.mapBundleEntry(fileName));
+      if (XmiFiles.isZargoFile(fileName))
+        return new XmiFile(fileName, XmiFiles.readXmiBytes(fileName), null);
+      FileChannel channel = FileChannel.open(Paths.get(fileName), StandardOpenOption.READ);
+      try {
+        long size = channel.size();
+        if (size > Integer.MAX_VALUE)
+          throw new IOException(fileName + " is too large");
+        ByteBuffer buffer = ByteBuffer.allocate((int) size);
+        while (buffer.hasRemaining())
+          if (channel.read(buffer) < 0)
+            break;
+        byte[] bytes = buffer.array();
+        if (buffer.position() < bytes.length)
+          bytes = Arrays.copyOf(bytes, buffer.position());
+        return new XmiFile(fileName, bytes, null);
+      } finally {
+        channel.close();
+      }
+    } catch (IOException e) {
+      return new XmiFile(fileName, null, e);
+    }
+  }
+
+  /**
+   * Returns true if there is a next XMI file. Blocks until the I/O thread 
+   * has read it. An error of the input source in the I/O thread is 
+   * rethrown here once the files read before it are taken.
+   */
+  public boolean hasNext() throws InterruptedException {
+    if (nextXmiFile == null) {
+      if (xmiFileQueue != null)
+        nextXmiFile = xmiFileQueue.take();
+      else
+        nextXmiFile = !fileNameIterator.hasNext() ? END : 
+                      mapFiles ? mapFile(fileNameIterator.next(), false) : readFile(fileNameIterator.next());
+    }
+    if (nextXmiFile == END && readError != null) {
+      if (readError instanceof Error)
+        throw (Error) readError;
+      throw (RuntimeException) readError;
+    }
+    return nextXmiFile != END;
+  }
+
+  /**
+   * Returns the next XMI file. Blocks until the I/O thread has read it.
+   * @return the next XMI file
+   */
+  public XmiFile next() throws InterruptedException {
+    if (!hasNext())
+      throw new NoSuchElementException();
+    XmiFile xmiFile = nextXmiFile;
+    nextXmiFile = null;
+    return xmiFile;
+  }
+
+  /**
+   * Stops reading ahead.
+   */
+  public void close() {
+    if (ioThread != null)
+      ioThread.interrupt();
+  }
+
+}
\ No newline at end of file
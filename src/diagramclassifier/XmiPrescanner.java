@@ -0,0 +1,139 @@
+package diagramclassifier;
+
+import java.nio.*;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * This class looks for the model elements the basic templates do not
+ * support in the bytes of an XMI 1.2 file before it is parsed: interfaces,
+ * dependencies, association classes and associations with more than two
+ * ends. A class diagram defining any of them is not coverable and its
+ * classification can stop right away. Only the tags defining elements,
+ * with an xmi.id attribute, are counted, so references to the elements of
+ * other models do not make a diagram not coverable. The scan ends with
+ * the first model, as in XmiModel.
+ * @author Alexey Tazin
+ */
+public class XmiPrescanner {
+
+  // The local names of the unsupported elements
+  private static final String[] UNSUPPORTED_ELEMENT_NAMES =
+    {"Interface", "Dependency", "Abstraction", "Usage", "Permission", "AssociationClass"};
+
+  private static final byte[][] UNSUPPORTED_ELEMENT_NAME_BYTES = new byte[UNSUPPORTED_ELEMENT_NAMES.length][];
+
+  private static final byte[] UML_PREFIX = "UML:".getBytes(StandardCharsets.US_ASCII);
+
+  private static final byte[] ASSOCIATION = "Association".getBytes(StandardCharsets.US_ASCII);
+
+  private static final byte[] ASSOCIATION_END = "AssociationEnd".getBytes(StandardCharsets.US_ASCII);
+
+  private static final byte[] MODEL = "Model".getBytes(StandardCharsets.US_ASCII);
+
+  private static final byte[] XMI_ID = "xmi.id".getBytes(StandardCharsets.US_ASCII);
+
+  static {
+    for (int i = 0; i < UNSUPPORTED_ELEMENT_NAMES.length; i++)
+      UNSUPPORTED_ELEMENT_NAME_BYTES[i] = UNSUPPORTED_ELEMENT_NAMES[i].getBytes(StandardCharsets.US_ASCII);
+  }
+
+  private XmiPrescanner() {
+  }
+
+  /**
+   * Finds the first element of the given XMI contents the basic templates
+   * do not support.
+   * @param buffer - the XMI contents from its position to its limit
+   * @return the local name of the element, "n-ary Association" for an
+   *         association with more than two ends; null if the diagram may
+   *         be coverable
+   */
+  public static String findUnsupportedElement(ByteBuffer buffer) {
+    int limit = buffer.limit();
+    // The number of the ends of the current association
+    int assocEndsNum = 0;
+    for (int pos = buffer.position(); pos < limit; pos++) {
+      if (buffer.get(pos) != '<')
+        continue;
+      boolean endTag = pos + 1 < limit && buffer.get(pos + 1) == '/';
+      int nameOffset = endTag ? pos + 2 : pos + 1;
+      if (!startsWith(buffer, nameOffset, limit, UML_PREFIX))
+        continue;
+      nameOffset += UML_PREFIX.length;
+      int nameEnd = nameOffset;
+      while (nameEnd < limit && !isNameEnd(buffer.get(nameEnd)))
+        nameEnd++;
+      if (endTag) {
+        if (equals(buffer, nameOffset, nameEnd, MODEL))
+          break;
+        continue;
+      }
+      if (equals(buffer, nameOffset, nameEnd, ASSOCIATION)) {
+        if (isDefining(buffer, nameEnd, limit))
+          assocEndsNum = 0;
+      } else if (equals(buffer, nameOffset, nameEnd, ASSOCIATION_END)) {
+        if (isDefining(buffer, nameEnd, limit) && ++assocEndsNum > 2)
+          return "n-ary Association";
+      } else
+        for (int i = 0; i < UNSUPPORTED_ELEMENT_NAME_BYTES.length; i++)
+          if (equals(buffer, nameOffset, nameEnd, UNSUPPORTED_ELEMENT_NAME_BYTES[i])) {
+            if (isDefining(buffer, nameEnd, limit))
+              return UNSUPPORTED_ELEMENT_NAMES[i];
+            break;
+          }
+      pos = nameEnd - 1;
+    }
+    return null;
+  }
+
+  /**
+   * Returns true if the tag with the attributes starting at the given
+   * position has an xmi.id attribute.
+   * @param buffer - the XMI contents
+   *        pos - the position after the element name
+   *        limit - the end of the contents
+   */
+  private static boolean isDefining(ByteBuffer buffer, int pos, int limit) {
+    byte quote = 0;
+    for (; pos < limit; pos++) {
+      byte b = buffer.get(pos);
+      if (quote != 0) {
+        if (b == quote)
+          quote = 0;
+      } else if (b == '"' || b == '\'')
+        quote = b;
+      else if (b == '>')
+        return false;
+      else if (b == 'x' && startsWith(buffer, pos, limit, XMI_ID)) {
+        int next = pos + XMI_ID.length;
+        while (next < limit && isWhitespace(buffer.get(next)))
+          next++;
+        if (next < limit && buffer.get(next) == '=')
+          return true;
+      }
+    }
+    return false;
+  }
+
+  private static boolean startsWith(ByteBuffer buffer, int pos, int limit, byte[] prefix) {
+    if (pos + prefix.length > limit)
+      return false;
+    for (int i = 0; i < prefix.length; i++)
+      if (buffer.get(pos + i) != prefix[i])
+        return false;
+    return true;
+  }
+
+  private static boolean equals(ByteBuffer buffer, int offset, int end, byte[] bytes) {
+    return end - offset == bytes.length && startsWith(buffer, offset, end, bytes);
+  }
+
+  private static boolean isWhitespace(byte b) {
+    return b == ' ' || b == '\t' || b == '\r' || b == '\n';
+  }
+
+  private static boolean isNameEnd(byte b) {
+    return isWhitespace(b) || b == '>' || b == '/';
+  }
+
+}
\ No newline at end of file